@@ -0,0 +1,95 @@
+package com.denisjulio.jokes.api.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import com.denisjulio.jokes.api.jokes.JokeProtobufHttpMessageConverter;
+import com.denisjulio.jokes.api.jokes.JokeView;
+
+/**
+ * A page of jokes written by each of the negotiable message converters. The
+ * encoded size of the page is printed once per trial, next to the timings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JokeFormatsBenchmark {
+
+  private static final Type PAGE_TYPE = new ParameterizedTypeReference<List<JokeView>>() {}.getType();
+
+  @Param({"json", "cbor", "smile", "protobuf"})
+  String format;
+
+  @Param({"50", "500"})
+  int size;
+
+  private GenericHttpMessageConverter<Object> converter;
+  private List<JokeView> page;
+
+  @Setup
+  public void setup() throws IOException {
+    converter = switch (format) {
+      case "json" -> new MappingJackson2HttpMessageConverter(Jackson2ObjectMapperBuilder.json().build());
+      case "cbor" -> new MappingJackson2CborHttpMessageConverter(Jackson2ObjectMapperBuilder.cbor().build());
+      case "smile" -> new MappingJackson2SmileHttpMessageConverter(Jackson2ObjectMapperBuilder.smile().build());
+      case "protobuf" -> new JokeProtobufHttpMessageConverter();
+      default -> throw new IllegalArgumentException(format);
+    };
+    page = Jokes.sample(size).stream()
+        .map(joke -> new JokeView(joke.getId(), joke.getContent(), joke.getAuthorId(), 0L))
+        .toList();
+    var message = new BufferedMessage();
+    converter.write(page, PAGE_TYPE, null, message);
+    System.out.printf("%n%s page of %d jokes: %d bytes%n", format, size, message.body.size());
+  }
+
+  @Benchmark
+  public byte[] writePage() throws IOException {
+    var message = new BufferedMessage();
+    converter.write(page, PAGE_TYPE, null, message);
+    return message.body.toByteArray();
+  }
+
+  private static final class BufferedMessage implements HttpOutputMessage {
+
+    private final HttpHeaders headers = new HttpHeaders();
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(64 * 1024);
+
+    @Override
+    public OutputStream getBody() {
+      return body;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+      return headers;
+    }
+  }
+}
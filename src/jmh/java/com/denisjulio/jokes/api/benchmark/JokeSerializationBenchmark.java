@@ -0,0 +1,58 @@
+package com.denisjulio.jokes.api.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.denisjulio.jokes.api.jokes.Joke;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Jackson serialization of jokes, configured the way Spring Boot configures
+ * the mapper used by the controllers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JokeSerializationBenchmark {
+
+  @Param({"1", "100", "10000"})
+  int size;
+
+  private ObjectMapper objectMapper;
+  private Joke joke;
+  private List<Joke> jokes;
+
+  @Setup
+  public void setup() {
+    objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    jokes = Jokes.sample(size);
+    joke = jokes.get(0);
+  }
+
+  @Benchmark
+  public byte[] serializeJoke() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(joke);
+  }
+
+  @Benchmark
+  public byte[] serializeJokeList() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(jokes);
+  }
+}
@@ -0,0 +1,42 @@
+package com.denisjulio.jokes.api.benchmark;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.denisjulio.jokes.api.jokes.Joke;
+
+/**
+ * Realistic looking jokes with ids assigned, as if they had been loaded.
+ */
+final class Jokes {
+
+  private static final String[] CONTENTS = {
+      "Why do programmers prefer dark mode? Because light attracts bugs.",
+      "I told my wife she was drawing her eyebrows too high. She looked surprised.",
+      "There are 10 kinds of people: those who understand binary and those who don't.",
+      "A SQL query walks into a bar, goes up to two tables and asks: can I join you?"
+  };
+
+  private Jokes() {}
+
+  static List<Joke> sample(int size) {
+    var jokes = new ArrayList<Joke>(size);
+    for (int i = 0; i < size; i++) {
+      var joke = new Joke(CONTENTS[i % CONTENTS.length], "3f1c2d9e-6b7a-4c1e-9a55-" + String.format("%012d", i % 97));
+      setId(joke, 1_000_000L + i);
+      jokes.add(joke);
+    }
+    return jokes;
+  }
+
+  private static void setId(Joke joke, long id) {
+    try {
+      Field field = Joke.class.getDeclaredField("id");
+      field.setAccessible(true);
+      field.set(joke, id);
+    } catch (ReflectiveOperationException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+}
@@ -0,0 +1,97 @@
+package com.denisjulio.jokes.api.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import com.denisjulio.jokes.api.JokesApiApplication;
+import com.denisjulio.jokes.api.jokes.DuplicateJokeException;
+import com.denisjulio.jokes.api.jokes.Joke;
+import com.denisjulio.jokes.api.jokes.JokesRepository;
+import com.denisjulio.jokes.api.jokes.JokesService;
+
+/**
+ * Service and persistence paths against a real Postgres in a container: a
+ * lookup served by the id cache, the same lookup straight from the
+ * repository as an entity and as a view, and a save.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JokesServiceBenchmark {
+
+  private PostgreSQLContainer<?> postgres;
+  private ConfigurableApplicationContext app;
+  private JokesService jokesService;
+  private JokesRepository jokesRepository;
+  private Long jokeId;
+  private long saved;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    postgres = new PostgreSQLContainer<>("postgres:15");
+    postgres.start();
+    app = new SpringApplicationBuilder(JokesApiApplication.class).run(
+        "--server.port=0",
+        "--spring.datasource.url=" + postgres.getJdbcUrl(),
+        "--spring.datasource.username=" + postgres.getUsername(),
+        "--spring.datasource.password=" + postgres.getPassword(),
+        "--logging.level.root=warn");
+    jokesService = app.getBean(JokesService.class);
+    jokesRepository = app.getBean(JokesRepository.class);
+    jokeId = jokesService.saveJoke(new Joke("A benchmark joke", "benchmark")).getId();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    app.close();
+    postgres.stop();
+  }
+
+  @Benchmark
+  public Object getJokeByIdCached() {
+    return jokesService.getJokeById(jokeId);
+  }
+
+  @Benchmark
+  public Object getJokeByIdFromDatabase() {
+    return jokesRepository.findById(jokeId);
+  }
+
+  @Benchmark
+  public Object getJokeViewByIdFromDatabase() {
+    return jokesRepository.findViewById(jokeId);
+  }
+
+  @Benchmark
+  public Joke saveJoke() {
+    // distinct content each time, a repost would not be inserted
+    return jokesService.saveJoke(new Joke("A benchmark joke " + saved++, "benchmark"));
+  }
+
+  @Benchmark
+  public Object saveDuplicateJoke() {
+    try {
+      return jokesService.saveJoke(new Joke("A benchmark joke", "benchmark"));
+    } catch (DuplicateJokeException ex) {
+      return ex.getExisting();
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package com.denisjulio.jokes.api.benchmark;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import com.denisjulio.jokes.api.CachingJwtDecoder;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+/**
+ * The bearer token path of the resource server: full RS256 verification as
+ * done by Nimbus, and the same token through the caching decoder that
+ * {@code SecurityConfig} puts in front of it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtDecodeBenchmark {
+
+  private JwtDecoder nimbusDecoder;
+  private JwtDecoder cachingDecoder;
+  private String token;
+
+  @Setup
+  public void setup() throws JOSEException {
+    var key = new RSAKeyGenerator(2048).keyID("benchmark").generate();
+    var claims = new JWTClaimsSet.Builder()
+        .subject("benchmark")
+        .claim("scope", "joker")
+        .issueTime(new Date())
+        .expirationTime(Date.from(Instant.now().plusSeconds(3600)))
+        .build();
+    var jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(), claims);
+    jwt.sign(new RSASSASigner(key));
+    token = jwt.serialize();
+
+    nimbusDecoder = NimbusJwtDecoder.withPublicKey(key.toRSAPublicKey()).build();
+    cachingDecoder = new CachingJwtDecoder(nimbusDecoder, 10_000, Clock.systemUTC());
+  }
+
+  @Benchmark
+  public Jwt nimbusDecode() {
+    return nimbusDecoder.decode(token);
+  }
+
+  @Benchmark
+  public Jwt cachingDecode() {
+    return cachingDecoder.decode(token);
+  }
+}
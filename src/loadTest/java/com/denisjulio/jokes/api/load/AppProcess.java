@@ -0,0 +1,125 @@
+package com.denisjulio.jokes.api.load;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The app launched from its jar in a JVM of its own, the way a deployment
+ * starts it, so startup can be timed from the outside: from process launch to
+ * the first successful {@code GET /jokes}.
+ */
+final class AppProcess implements AutoCloseable {
+
+  private static final HttpClient client = HttpClient.newBuilder()
+      .connectTimeout(Duration.ofSeconds(1))
+      .build();
+
+  private final Process process;
+  private final long launchedAt;
+  private final String baseUrl;
+
+  private AppProcess(Process process, long launchedAt, int port) {
+    this.process = process;
+    this.launchedAt = launchedAt;
+    this.baseUrl = "http://localhost:" + port;
+  }
+
+  /**
+   * Launches {@code jar} with {@code jvmOptions}, and {@code appArguments}
+   * minus any {@code server.port}, as a free port is picked instead. Output
+   * goes to {@code log}.
+   */
+  static AppProcess launch(Path jar, List<String> jvmOptions, List<String> appArguments, Path log)
+      throws IOException {
+    int port;
+    try (var socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+    var command = new ArrayList<String>();
+    command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+    command.addAll(jvmOptions);
+    command.add("-jar");
+    command.add(jar.toString());
+    appArguments.stream().filter(argument -> !argument.startsWith("--server.port=")).forEach(command::add);
+    command.add("--server.port=" + port);
+
+    Files.createDirectories(log.toAbsolutePath().getParent());
+    var builder = new ProcessBuilder(command)
+        .redirectErrorStream(true)
+        .redirectOutput(ProcessBuilder.Redirect.to(log.toFile()));
+    var launchedAt = System.nanoTime();
+    return new AppProcess(builder.start(), launchedAt, port);
+  }
+
+  String baseUrl() {
+    return baseUrl;
+  }
+
+  /**
+   * Polls {@code GET /jokes} until it succeeds and returns how long after
+   * launch that was.
+   */
+  Duration awaitFirstResponse(Duration timeout) throws IOException, InterruptedException {
+    var request = HttpRequest.newBuilder(URI.create(baseUrl + "/jokes?limit=1"))
+        .timeout(Duration.ofSeconds(5))
+        .GET()
+        .build();
+    var deadline = launchedAt + timeout.toNanos();
+    while (System.nanoTime() < deadline) {
+      if (!process.isAlive()) {
+        throw new IllegalStateException("The app exited with " + process.exitValue() + " before serving");
+      }
+      try {
+        if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+          return Duration.ofNanos(System.nanoTime() - launchedAt);
+        }
+      } catch (ConnectException ex) {
+        // not listening yet
+      }
+      Thread.sleep(10);
+    }
+    throw new IllegalStateException("The app did not serve within " + timeout);
+  }
+
+  /**
+   * Resident set size of the app's JVM, or -1 where {@code /proc} isn't
+   * available.
+   */
+  long residentBytes() throws IOException {
+    var status = Path.of("/proc", String.valueOf(process.pid()), "status");
+    if (!Files.isReadable(status)) {
+      return -1;
+    }
+    // e.g. "VmRSS:	  251636 kB"
+    return Files.readAllLines(status).stream()
+        .filter(line -> line.startsWith("VmRSS:"))
+        .map(line -> line.replaceAll("\\D", ""))
+        .mapToLong(kilobytes -> Long.parseLong(kilobytes) * 1024)
+        .findFirst()
+        .orElse(-1);
+  }
+
+  /**
+   * Stops the app the way an orchestrator would, with a SIGTERM, so it shuts
+   * down gracefully and the JVM runs its exit work, such as dumping a CDS
+   * archive.
+   */
+  @Override
+  public void close() throws InterruptedException {
+    process.destroy();
+    if (!process.waitFor(60, TimeUnit.SECONDS)) {
+      process.destroyForcibly().waitFor();
+    }
+  }
+}
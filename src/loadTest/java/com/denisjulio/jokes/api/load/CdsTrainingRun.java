@@ -0,0 +1,68 @@
+package com.denisjulio.jokes.api.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Records the class data sharing archive the fast-startup deployment runs
+ * with. The app is started in the production configuration against a
+ * throwaway database, taken through its common requests so their classes are
+ * loaded too, then stopped, and the JVM dumps every class it loaded into the
+ * archive on exit.
+ * <p>
+ * Arguments: the jar to train, and the archive to write. The archive is only
+ * valid for that exact jar and JVM.
+ */
+public class CdsTrainingRun {
+
+  static final List<String> PRODUCTION_ARGUMENTS = List.of("--spring.profiles.active=prod");
+  static final String AOT_ENABLED = "-Dspring.aot.enabled=true";
+
+  public static void main(String[] args) throws Exception {
+    var jar = Path.of(args[0]);
+    var archive = Path.of(args[1]);
+    Files.createDirectories(archive.toAbsolutePath().getParent());
+    Files.deleteIfExists(archive);
+
+    try (var environment = new LoadTestEnvironment(Duration.ZERO)) {
+      var arguments = new ArrayList<>(environment.appArguments());
+      arguments.addAll(PRODUCTION_ARGUMENTS);
+      var jvmOptions = List.of("-XX:ArchiveClassesAtExit=" + archive, AOT_ENABLED);
+      try (var app = AppProcess.launch(jar, jvmOptions, arguments, archive.resolveSibling("training-run.log"))) {
+        var startup = app.awaitFirstResponse(Duration.ofMinutes(2));
+        System.out.printf("Training run served after %d ms%n", startup.toMillis());
+        exercise(app.baseUrl(), environment.mintToken("cds-trainer"));
+      }
+    }
+
+    if (!Files.exists(archive)) {
+      throw new IllegalStateException("No archive was written, see training-run.log next to " + archive);
+    }
+    System.out.printf("CDS archive written to %s (%d MB)%n", archive.toAbsolutePath(),
+        Files.size(archive) / (1024 * 1024));
+  }
+
+  private static void exercise(String baseUrl, String token) throws Exception {
+    var client = HttpClient.newHttpClient();
+    var created = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/jokes"))
+        .header("Authorization", "Bearer " + token)
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString("{\"content\":\"A joke to train on\"}"))
+        .build(), HttpResponse.BodyHandlers.ofString());
+    var jokeId = new ObjectMapper().readTree(created.body()).path("id").asLong();
+    for (var path : List.of("/jokes/" + jokeId, "/jokes/random", "/jokes?limit=20", "/authors/cds-trainer/jokes/count",
+        "/actuator/health")) {
+      client.send(HttpRequest.newBuilder(URI.create(baseUrl).resolve(path)).GET().build(),
+          HttpResponse.BodyHandlers.discarding());
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package com.denisjulio.jokes.api.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Closed-loop load: a fixed number of clients, each sending its next request
+ * as soon as the previous one answers. Clients run on virtual threads so the
+ * generator itself never runs out of threads before the server does.
+ */
+public class LoadGenerator {
+
+  private final HttpClient httpClient = HttpClient.newBuilder()
+      .version(HttpClient.Version.HTTP_1_1)
+      .executor(Executors.newVirtualThreadPerTaskExecutor())
+      .build();
+  private final int concurrency;
+  private final Duration warmup;
+  private final Duration duration;
+
+  public LoadGenerator(int concurrency, Duration warmup, Duration duration) {
+    this.concurrency = concurrency;
+    this.warmup = warmup;
+    this.duration = duration;
+  }
+
+  public record Result(String scenario, long requests, long errors, double throughputPerSecond,
+      double p50Millis, double p99Millis) {
+  }
+
+  public HttpResponse<String> send(HttpRequest request) throws Exception {
+    return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+  }
+
+  public Result run(String scenario, Supplier<HttpRequest> requests) throws InterruptedException {
+    runFor(warmup, requests, new ArrayList<>(), new AtomicLong());
+    var latencies = new ArrayList<long[]>();
+    var errors = new AtomicLong();
+    var started = System.nanoTime();
+    runFor(duration, requests, latencies, errors);
+    var elapsedSeconds = (System.nanoTime() - started) / 1e9;
+
+    var all = latencies.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+    return new Result(scenario, all.length, errors.get(), all.length / elapsedSeconds,
+        percentile(all, 0.50), percentile(all, 0.99));
+  }
+
+  private void runFor(Duration window, Supplier<HttpRequest> requests, List<long[]> latencies, AtomicLong errors)
+      throws InterruptedException {
+    var deadline = System.nanoTime() + window.toNanos();
+    var clients = new ArrayList<Thread>();
+    for (int i = 0; i < concurrency; i++) {
+      clients.add(Thread.ofVirtual().start(() -> {
+        var own = new long[1024];
+        var count = 0;
+        while (System.nanoTime() < deadline) {
+          var start = System.nanoTime();
+          try {
+            var response = httpClient.send(requests.get(), HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() >= 400) {
+              errors.incrementAndGet();
+              continue;
+            }
+          } catch (Exception ex) {
+            errors.incrementAndGet();
+            continue;
+          }
+          if (count == own.length) {
+            own = Arrays.copyOf(own, count * 2);
+          }
+          own[count++] = System.nanoTime() - start;
+        }
+        synchronized (latencies) {
+          latencies.add(Arrays.copyOf(own, count));
+        }
+      }));
+    }
+    for (var client : clients) {
+      client.join();
+    }
+  }
+
+  private static double percentile(long[] sortedNanos, double quantile) {
+    if (sortedNanos.length == 0) {
+      return Double.NaN;
+    }
+    var index = (int) Math.ceil(quantile * sortedNanos.length) - 1;
+    return sortedNanos[Math.max(index, 0)] / 1e6;
+  }
+
+  public static HttpRequest.Builder request(String baseUrl, String path) {
+    return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30));
+  }
+}
@@ -0,0 +1,125 @@
+package com.denisjulio.jokes.api.load;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.ToxiproxyContainer;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.sun.net.httpserver.HttpServer;
+
+import eu.rekawek.toxiproxy.ToxiproxyClient;
+import eu.rekawek.toxiproxy.model.ToxicDirection;
+
+/**
+ * Everything a benchmark run needs besides the app itself: a throwaway
+ * Postgres reached through a Toxiproxy that adds a fixed latency, standing in
+ * for a remote database, and a local JWK endpoint plus signing key so the
+ * benchmark can mint tokens the app verifies for real.
+ */
+public class LoadTestEnvironment implements AutoCloseable {
+
+  private static final int PROXIED_PORT = 8666;
+
+  private final Network network = Network.newNetwork();
+  private final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15")
+      .withNetwork(network)
+      .withNetworkAliases("postgres");
+  private final ToxiproxyContainer toxiproxy = new ToxiproxyContainer("ghcr.io/shopify/toxiproxy:2.5.0")
+      .withNetwork(network);
+  private final RSAKey signingKey;
+  private final HttpServer jwkServer;
+
+  public LoadTestEnvironment(Duration dbLatency) throws IOException, JOSEException {
+    postgres.start();
+    toxiproxy.start();
+    var proxy = new ToxiproxyClient(toxiproxy.getHost(), toxiproxy.getControlPort())
+        .createProxy("postgres", "0.0.0.0:" + PROXIED_PORT, "postgres:5432");
+    if (!dbLatency.isZero()) {
+      proxy.toxics().latency("db-latency", ToxicDirection.DOWNSTREAM, dbLatency.toMillis());
+    }
+
+    signingKey = new RSAKeyGenerator(2048).keyID("load-test").generate();
+    var jwkSet = new JWKSet(signingKey.toPublicJWK()).toString().getBytes(StandardCharsets.UTF_8);
+    jwkServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    jwkServer.createContext("/certs", exchange -> {
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(200, jwkSet.length);
+      try (var body = exchange.getResponseBody()) {
+        body.write(jwkSet);
+      }
+    });
+    jwkServer.start();
+  }
+
+  /**
+   * Command line arguments pointing the app at this environment's database
+   * and JWK set. Passed as arguments rather than default properties so they
+   * win over application.yml.
+   */
+  public List<String> appArguments() {
+    var properties = new LinkedHashMap<String, Object>();
+    properties.put("server.port", 0);
+    properties.put("spring.datasource.url", "jdbc:postgresql://%s:%d/%s".formatted(
+        toxiproxy.getHost(), toxiproxy.getMappedPort(PROXIED_PORT), postgres.getDatabaseName()));
+    properties.put("spring.datasource.username", postgres.getUsername());
+    properties.put("spring.datasource.password", postgres.getPassword());
+    properties.put("spring.security.oauth2.resourceserver.jwt.jwk-set-uri", jwkSetUri());
+    properties.put("logging.level.org.springframework.security", "info");
+    return properties.entrySet().stream()
+        .map(property -> "--" + property.getKey() + "=" + property.getValue())
+        .toList();
+  }
+
+  /**
+   * Drops every table and sequence, for a run that has to start from an
+   * empty database.
+   */
+  public void resetSchema() throws SQLException {
+    try (var connection = postgres.createConnection(""); var statement = connection.createStatement()) {
+      statement.execute("drop schema public cascade; create schema public");
+    }
+  }
+
+  public String jwkSetUri() {
+    return "http://localhost:" + jwkServer.getAddress().getPort() + "/certs";
+  }
+
+  public String mintToken(String subject) throws JOSEException {
+    var now = Instant.now();
+    var claims = new JWTClaimsSet.Builder()
+        .subject(subject)
+        .claim("scope", "joker")
+        .issueTime(Date.from(now))
+        .expirationTime(Date.from(now.plus(Duration.ofHours(1))))
+        .build();
+    var jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(signingKey.getKeyID()).build(), claims);
+    jwt.sign(new RSASSASigner(signingKey));
+    return jwt.serialize();
+  }
+
+  @Override
+  public void close() {
+    jwkServer.stop(0);
+    toxiproxy.stop();
+    postgres.stop();
+    network.close();
+  }
+}
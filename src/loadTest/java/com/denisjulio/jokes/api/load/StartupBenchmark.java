@@ -0,0 +1,102 @@
+package com.denisjulio.jokes.api.load;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Time to first request and resident memory of a cold start, for the
+ * development setup (Hibernate generating the schema) and for the
+ * production profile on its own, with AOT-generated initialization, and with
+ * AOT plus the CDS archive. The production variants start against an already
+ * migrated database, as a redeploy would.
+ * <p>
+ * Arguments: the fast-startup jar, the CDS archive recorded for it, and where
+ * to write the JSON results. {@code startup.runs} sets how many cold starts
+ * each variant gets, medians are reported.
+ */
+public class StartupBenchmark {
+
+  record Variant(String name, List<String> jvmOptions, List<String> arguments) {
+  }
+
+  public record Result(String variant, List<Long> firstRequestMillis, long medianFirstRequestMillis,
+      long medianResidentMegabytes) {
+  }
+
+  public static void main(String[] args) throws Exception {
+    var jar = Path.of(args[0]);
+    var archive = Path.of(args[1]);
+    var output = Path.of(args.length > 2 ? args[2] : "build/reports/startup/startup.json");
+    var runs = Integer.getInteger("startup.runs", 5);
+    var logs = output.resolveSibling("logs");
+    if (!Files.exists(archive)) {
+      throw new IllegalStateException("No CDS archive at " + archive + ", run the cdsArchive task first");
+    }
+
+    var production = CdsTrainingRun.PRODUCTION_ARGUMENTS;
+    var development = new Variant("ddl-auto create-drop", List.of(), List.of());
+    var variants = List.of(
+        new Variant("prod", List.of(), production),
+        new Variant("prod + AOT", List.of(CdsTrainingRun.AOT_ENABLED), production),
+        new Variant("prod + AOT + CDS",
+            List.of(CdsTrainingRun.AOT_ENABLED, "-XX:SharedArchiveFile=" + archive, "-Xlog:cds=warning"),
+            production));
+
+    var results = new ArrayList<Result>();
+    try (var environment = new LoadTestEnvironment(Duration.ZERO)) {
+      results.add(measure(development, runs, jar, environment, logs));
+      environment.resetSchema();
+      // migrate once up front so no measured run pays for it
+      try (var app = AppProcess.launch(jar, List.of(), withEnvironment(environment, production),
+          logs.resolve("migration.log"))) {
+        app.awaitFirstResponse(Duration.ofMinutes(2));
+      }
+      for (var variant : variants) {
+        results.add(measure(variant, runs, jar, environment, logs));
+      }
+    }
+
+    print(results);
+    Files.createDirectories(output.toAbsolutePath().getParent());
+    new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output.toFile(), results);
+    System.out.println("Results written to " + output.toAbsolutePath());
+  }
+
+  private static Result measure(Variant variant, int runs, Path jar, LoadTestEnvironment environment, Path logs)
+      throws Exception {
+    var firstRequest = new ArrayList<Long>();
+    var resident = new ArrayList<Long>();
+    for (int run = 0; run < runs; run++) {
+      var log = logs.resolve(variant.name().replaceAll("\\W+", "-") + "-" + run + ".log");
+      try (var app = AppProcess.launch(jar, variant.jvmOptions(), withEnvironment(environment, variant.arguments()),
+          log)) {
+        firstRequest.add(app.awaitFirstResponse(Duration.ofMinutes(2)).toMillis());
+        resident.add(app.residentBytes() / (1024 * 1024));
+      }
+    }
+    return new Result(variant.name(), firstRequest, median(firstRequest), median(resident));
+  }
+
+  private static List<String> withEnvironment(LoadTestEnvironment environment, List<String> arguments) {
+    return Stream.concat(environment.appArguments().stream(), arguments.stream()).toList();
+  }
+
+  private static long median(List<Long> values) {
+    return values.stream().sorted().skip(values.size() / 2).findFirst().orElse(-1L);
+  }
+
+  private static void print(List<Result> results) {
+    System.out.printf("%n  %-22s %18s %12s %s%n", "variant", "first request ms", "RSS MB", "runs ms");
+    for (var result : results) {
+      System.out.printf("  %-22s %18d %12d %s%n", result.variant(), result.medianFirstRequestMillis(),
+          result.medianResidentMegabytes(), result.firstRequestMillis());
+    }
+  }
+}
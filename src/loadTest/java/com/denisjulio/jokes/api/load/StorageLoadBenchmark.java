@@ -0,0 +1,103 @@
+package com.denisjulio.jokes.api.load;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import com.denisjulio.jokes.api.JokesApiApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Compares the storage engines over the whole HTTP API: Postgres through JPA,
+ * behind the same simulated network latency as the other benchmarks, and the
+ * embedded append log. Each engine gets a fresh app and empty storage, then
+ * runs the {@link ThreadModeLoadBenchmark} scenarios plus author pages,
+ * search and random picks. The joke cache is turned off so reads by id reach
+ * the engine.
+ * <p>
+ * Tuned through the same system properties as
+ * {@link ThreadModeLoadBenchmark}. Results are printed and written as JSON
+ * to the path given as first argument.
+ */
+public class StorageLoadBenchmark {
+
+  private static final String[] SEARCH_TERMS = {"joke", "number", "seed", "load"};
+
+  public record EngineResult(String engine, List<LoadGenerator.Result> scenarios) {
+  }
+
+  public static void main(String[] args) throws Exception {
+    var concurrency = Integer.getInteger("load.concurrency", 400);
+    var warmup = Duration.parse(System.getProperty("load.warmup", "PT10S"));
+    var duration = Duration.parse(System.getProperty("load.duration", "PT30S"));
+    var dbLatency = Duration.parse(System.getProperty("load.dbLatency", "PT0.005S"));
+    var output = Path.of(args.length > 0 ? args[0] : "build/reports/load/storage.json");
+    var logDirectory = Files.createTempDirectory("jokes-log");
+
+    var results = new ArrayList<EngineResult>();
+    try (var environment = new LoadTestEnvironment(dbLatency)) {
+      var generator = new LoadGenerator(concurrency, warmup, duration);
+      var token = environment.mintToken("load-tester");
+      for (var engine : List.of("jpa", "append-log")) {
+        var arguments = new ArrayList<>(environment.appArguments());
+        arguments.add("--jokes.cache.maximum-size=0");
+        arguments.add("--spring.datasource.hikari.maximum-pool-size=50");
+        if (engine.equals("append-log")) {
+          arguments.add("--spring.profiles.active=embedded");
+          arguments.add("--jokes.storage.append-log.path=" + logDirectory.resolve("jokes.log"));
+        } else {
+          environment.resetSchema();
+        }
+        var app = new SpringApplicationBuilder(JokesApiApplication.class).run(arguments.toArray(String[]::new));
+        try {
+          var baseUrl = "http://localhost:" + ((ServletWebServerApplicationContext) app).getWebServer().getPort();
+          var scenarios = new ArrayList<>(ThreadModeLoadBenchmark.runScenarios(generator, baseUrl, token));
+          scenarios.addAll(readScenarios(generator, baseUrl));
+          results.add(new EngineResult(engine, scenarios));
+        } finally {
+          app.close();
+        }
+      }
+    } finally {
+      FileSystemUtils.deleteRecursively(logDirectory);
+    }
+
+    results.forEach(StorageLoadBenchmark::print);
+    Files.createDirectories(output.toAbsolutePath().getParent());
+    new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output.toFile(), results);
+    System.out.println("Results written to " + output.toAbsolutePath());
+  }
+
+  private static List<LoadGenerator.Result> readScenarios(LoadGenerator generator, String baseUrl)
+      throws InterruptedException {
+    return List.of(
+        generator.run("GET /jokes?author", () -> LoadGenerator
+            .request(baseUrl, "/jokes?author=load-tester&limit=20")
+            .GET()
+            .build()),
+        generator.run("GET /jokes/search", () -> LoadGenerator
+            .request(baseUrl, "/jokes/search?limit=20&q="
+                + SEARCH_TERMS[ThreadLocalRandom.current().nextInt(SEARCH_TERMS.length)])
+            .GET()
+            .build()),
+        generator.run("GET /jokes/random", () -> LoadGenerator.request(baseUrl, "/jokes/random").GET().build()));
+  }
+
+  private static void print(EngineResult result) {
+    System.out.printf("%n%s storage%n", result.engine());
+    System.out.printf("  %-22s %10s %8s %12s %10s %10s%n", "scenario", "requests", "errors", "req/s", "p50 ms",
+        "p99 ms");
+    for (var scenario : result.scenarios()) {
+      System.out.printf("  %-22s %10d %8d %12.1f %10.2f %10.2f%n", scenario.scenario(), scenario.requests(),
+          scenario.errors(), scenario.throughputPerSecond(), scenario.p50Millis(), scenario.p99Millis());
+    }
+  }
+}
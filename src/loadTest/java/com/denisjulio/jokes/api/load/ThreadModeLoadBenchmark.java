@@ -0,0 +1,108 @@
+package com.denisjulio.jokes.api.load;
+
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+import com.denisjulio.jokes.api.JokesApiApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Compares Tomcat on its platform worker pool with the virtual-thread mode,
+ * on the same data and the same simulated database latency. Each mode gets a
+ * fresh app and schema, is seeded through the batch endpoint, then every
+ * scenario is warmed up and measured separately.
+ * <p>
+ * Tuned through system properties: {@code load.concurrency},
+ * {@code load.warmup}, {@code load.duration} and {@code load.dbLatency}
+ * (ISO-8601 durations, e.g. {@code PT30S}). Results are printed and written
+ * as JSON to the path given as first argument.
+ */
+public class ThreadModeLoadBenchmark {
+
+  private static final int SEED_JOKES = 1000;
+
+  public record ModeResult(String mode, List<LoadGenerator.Result> scenarios) {
+  }
+
+  public static void main(String[] args) throws Exception {
+    var concurrency = Integer.getInteger("load.concurrency", 400);
+    var warmup = Duration.parse(System.getProperty("load.warmup", "PT10S"));
+    var duration = Duration.parse(System.getProperty("load.duration", "PT30S"));
+    var dbLatency = Duration.parse(System.getProperty("load.dbLatency", "PT0.005S"));
+    var output = Path.of(args.length > 0 ? args[0] : "build/reports/load/thread-modes.json");
+
+    var results = new ArrayList<ModeResult>();
+    try (var environment = new LoadTestEnvironment(dbLatency)) {
+      var generator = new LoadGenerator(concurrency, warmup, duration);
+      var token = environment.mintToken("load-tester");
+      for (var virtual : List.of(false, true)) {
+        var mode = virtual ? "virtual" : "platform";
+        var arguments = new ArrayList<>(environment.appArguments());
+        arguments.add("--jokes.threads.virtual.enabled=" + virtual);
+        arguments.add("--spring.datasource.hikari.maximum-pool-size=50");
+        var app = new SpringApplicationBuilder(JokesApiApplication.class).run(arguments.toArray(String[]::new));
+        try {
+          var port = ((ServletWebServerApplicationContext) app).getWebServer().getPort();
+          results.add(new ModeResult(mode, runScenarios(generator, "http://localhost:" + port, token)));
+        } finally {
+          app.close();
+        }
+      }
+    }
+
+    results.forEach(ThreadModeLoadBenchmark::print);
+    Files.createDirectories(output.toAbsolutePath().getParent());
+    new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output.toFile(), results);
+    System.out.println("Results written to " + output.toAbsolutePath());
+  }
+
+  static List<LoadGenerator.Result> runScenarios(LoadGenerator generator, String baseUrl, String token)
+      throws Exception {
+    var seed = new StringBuilder("[");
+    for (int i = 0; i < SEED_JOKES; i++) {
+      seed.append(i == 0 ? "" : ",").append("{\"content\":\"Seed joke number ").append(i).append("\"}");
+    }
+    var seeded = generator.send(LoadGenerator.request(baseUrl, "/jokes/batch")
+        .header("Authorization", "Bearer " + token)
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(seed.append("]").toString()))
+        .build());
+    var ids = new ObjectMapper().readTree(seeded.body()).findValues("id").stream()
+        .mapToLong(id -> id.asLong())
+        .toArray();
+
+    return List.of(
+        generator.run("GET /jokes", () -> LoadGenerator.request(baseUrl, "/jokes?limit=20").GET().build()),
+        generator.run("GET /jokes/{jokeId}", () -> LoadGenerator
+            .request(baseUrl, "/jokes/" + ids[ThreadLocalRandom.current().nextInt(ids.length)])
+            .GET()
+            .build()),
+        generator.run("POST /jokes", () -> LoadGenerator.request(baseUrl, "/jokes")
+            .header("Authorization", "Bearer " + token)
+            .header("Content-Type", "application/json")
+            // distinct content, reposts are answered without an insert
+            .POST(HttpRequest.BodyPublishers.ofString(
+                "{\"content\":\"A joke under load " + UUID.randomUUID() + "\"}"))
+            .build()));
+  }
+
+  private static void print(ModeResult result) {
+    System.out.printf("%n%s threads%n", result.mode());
+    System.out.printf("  %-22s %10s %8s %12s %10s %10s%n", "scenario", "requests", "errors", "req/s", "p50 ms",
+        "p99 ms");
+    for (var scenario : result.scenarios()) {
+      System.out.printf("  %-22s %10d %8d %12.1f %10.2f %10.2f%n", scenario.scenario(), scenario.requests(),
+          scenario.errors(), scenario.throughputPerSecond(), scenario.p50Millis(), scenario.p99Millis());
+    }
+  }
+}
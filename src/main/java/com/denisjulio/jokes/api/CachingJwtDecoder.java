@@ -0,0 +1,83 @@
+package com.denisjulio.jokes.api;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * Remembers tokens that {@code delegate} already validated, keyed by a digest
+ * of the raw token, until they expire. Clients reusing a token skip the
+ * parsing and RSA signature check on every call after the first.
+ * <p>
+ * Only successful decodes are cached, and tokens without an expiry are never
+ * cached since nothing would bound their lifetime here.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+  private final JwtDecoder delegate;
+  private final Clock clock;
+  private final Cache<String, Jwt> validated;
+
+  public CachingJwtDecoder(JwtDecoder delegate, long maximumSize, Clock clock) {
+    this.delegate = delegate;
+    this.clock = clock;
+    this.validated = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfter(new UntilTokenExpiry(clock))
+        .build();
+  }
+
+  @Override
+  public Jwt decode(String token) throws JwtException {
+    var key = digest(token);
+    var cached = validated.getIfPresent(key);
+    if (cached != null && cached.getExpiresAt().isAfter(clock.instant())) {
+      return cached;
+    }
+    var jwt = delegate.decode(token);
+    if (jwt.getExpiresAt() != null) {
+      validated.put(key, jwt);
+    }
+    return jwt;
+  }
+
+  private static String digest(String token) {
+    try {
+      var hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+      return Base64.getEncoder().encodeToString(hash);
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException("SHA-256 is not available", ex);
+    }
+  }
+
+  private record UntilTokenExpiry(Clock clock) implements Expiry<String, Jwt> {
+
+    @Override
+    public long expireAfterCreate(String key, Jwt jwt, long currentTime) {
+      var remaining = Duration.between(clock.instant(), jwt.getExpiresAt());
+      return remaining.isNegative() ? 0 : remaining.toNanos();
+    }
+
+    @Override
+    public long expireAfterUpdate(String key, Jwt jwt, long currentTime, long currentDuration) {
+      return expireAfterCreate(key, jwt, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(String key, Jwt jwt, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
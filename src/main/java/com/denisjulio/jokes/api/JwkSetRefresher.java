@@ -0,0 +1,50 @@
+package com.denisjulio.jokes.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.cache.Cache;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestOperations;
+
+/**
+ * Keeps the JWK set in the cache the JWT decoder reads from. The set is
+ * fetched once before the web server accepts requests and then refreshed in
+ * the background, so signature checks never wait on the identity provider. A
+ * failed refresh keeps serving the last good set.
+ */
+public class JwkSetRefresher implements SmartInitializingSingleton {
+
+  private static final Logger log = LoggerFactory.getLogger(JwkSetRefresher.class);
+
+  private final String jwkSetUri;
+  private final RestOperations restOperations;
+  private final Cache jwkSetCache;
+
+  public JwkSetRefresher(String jwkSetUri, RestOperations restOperations, Cache jwkSetCache) {
+    this.jwkSetUri = jwkSetUri;
+    this.restOperations = restOperations;
+    this.jwkSetCache = jwkSetCache;
+  }
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    refresh();
+  }
+
+  @Scheduled(
+      initialDelayString = "${jokes.security.jwk-set-refresh-interval:5m}",
+      fixedDelayString = "${jokes.security.jwk-set-refresh-interval:5m}")
+  public void refresh() {
+    try {
+      var jwkSet = restOperations.getForObject(jwkSetUri, String.class);
+      if (jwkSet != null) {
+        // same key the decoder's caching retriever looks up
+        jwkSetCache.put(jwkSetUri, jwkSet);
+      }
+    } catch (RestClientException ex) {
+      log.warn("Could not refresh the JWK set from {}, keeping the previous one: {}", jwkSetUri, ex.getMessage());
+    }
+  }
+}
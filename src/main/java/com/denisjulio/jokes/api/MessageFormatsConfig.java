@@ -0,0 +1,42 @@
+package com.denisjulio.jokes.api;
+
+import java.util.List;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.denisjulio.jokes.api.jokes.JokeProtobufHttpMessageConverter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Binary representations next to JSON, picked through content negotiation:
+ * {@code application/cbor} and {@code application/x-jackson-smile} share the
+ * JSON mapper's configuration, {@code application/x-protobuf} follows
+ * {@code jokes.proto}. JSON stays first, so it remains the default for
+ * clients that accept anything.
+ */
+@Configuration(proxyBeanMethods = false)
+public class MessageFormatsConfig implements WebMvcConfigurer {
+
+  @Bean
+  public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+  }
+
+  @Bean
+  public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+  }
+
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    // not a bean, Boot would put it ahead of JSON
+    converters.add(new JokeProtobufHttpMessageConverter());
+  }
+}
@@ -0,0 +1,58 @@
+package com.denisjulio.jokes.api;
+
+import java.time.Duration;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Spreads read-only transactions over the Postgres read replicas listed in
+ * {@code jokes.replicas.urls}, while writes and read-write transactions keep
+ * using the primary from {@code spring.datasource}.
+ * <p>
+ * The primary pool is still the one Spring Boot configures, it is only
+ * wrapped, so its settings, metrics and connection details apply as before.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "jokes.replicas.urls")
+public class ReadReplicasConfig {
+
+  @Bean
+  public ReplicaPool replicaPool(@Value("${jokes.replicas.urls}") List<String> urls,
+      @Value("${jokes.replicas.username:${spring.datasource.username:}}") String username,
+      @Value("${jokes.replicas.password:${spring.datasource.password:}}") String password,
+      @Value("${jokes.replicas.maximum-pool-size:10}") int maximumPoolSize,
+      @Value("${jokes.replicas.connection-timeout:1s}") Duration connectionTimeout) {
+    return new ReplicaPool(urls, username, password, maximumPoolSize, connectionTimeout);
+  }
+
+  @Bean
+  public RecentWriters recentWriters(@Value("${jokes.replicas.read-your-writes-window:5s}") Duration window) {
+    return new RecentWriters(window);
+  }
+
+  // static and lazy, so the pool and its @Scheduled health check are created as regular beans
+  @Bean
+  public static BeanPostProcessor replicaRoutingPostProcessor(ObjectProvider<ReplicaPool> replicaPool,
+      ObjectProvider<RecentWriters> recentWriters) {
+    return new BeanPostProcessor() {
+
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!"dataSource".equals(beanName) || !(bean instanceof DataSource primary)) {
+          return bean;
+        }
+        var routing = new ReplicaRoutingDataSource(primary, replicaPool.getObject(), recentWriters.getObject());
+        return new LazyConnectionDataSourceProxy(routing);
+      }
+    };
+  }
+}
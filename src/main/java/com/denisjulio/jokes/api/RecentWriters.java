@@ -0,0 +1,42 @@
+package com.denisjulio.jokes.api;
+
+import java.time.Duration;
+
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.denisjulio.jokes.api.jokes.JokeDeletedEvent;
+import com.denisjulio.jokes.api.jokes.JokeSavedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Authors who changed a joke within the last {@code window}, as the JWT
+ * subject. Their reads stay on the primary for that long so they see their
+ * own writes, whatever the replicas' lag. Changes relayed from other nodes
+ * count too, as the author's next request may land here.
+ */
+public class RecentWriters {
+
+  private final Cache<String, Boolean> writers;
+
+  public RecentWriters(Duration window) {
+    this.writers = Caffeine.newBuilder()
+        .expireAfterWrite(window)
+        .maximumSize(100_000)
+        .build();
+  }
+
+  public boolean contains(String subject) {
+    return writers.getIfPresent(subject) != null;
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  void onJokeSaved(JokeSavedEvent event) {
+    writers.put(event.joke().getAuthorId(), Boolean.TRUE);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  void onJokeDeleted(JokeDeletedEvent event) {
+    writers.put(event.authorId(), Boolean.TRUE);
+  }
+}
@@ -0,0 +1,132 @@
+package com.denisjulio.jokes.api;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * A connection pool per read replica, each checked for health in the
+ * background. Reads go to the healthy replica with the fewest connections
+ * in use, ties are broken round-robin.
+ * <p>
+ * A meter binder rather than a user of the registry, as it is created while
+ * the primary data source is, before metrics are set up.
+ */
+public class ReplicaPool implements MeterBinder, DisposableBean {
+
+  private static final Logger log = LoggerFactory.getLogger(ReplicaPool.class);
+
+  private final List<Replica> replicas;
+  private final AtomicInteger next = new AtomicInteger();
+
+  public ReplicaPool(List<String> urls, String username, String password, int maximumPoolSize,
+      Duration connectionTimeout) {
+    this.replicas = IntStream.range(0, urls.size())
+        .mapToObj(i -> {
+          var config = new HikariConfig();
+          config.setPoolName("replica-" + i);
+          config.setJdbcUrl(urls.get(i));
+          config.setUsername(username);
+          config.setPassword(password);
+          config.setMaximumPoolSize(maximumPoolSize);
+          config.setConnectionTimeout(connectionTimeout.toMillis());
+          config.setReadOnly(true);
+          // a replica that is down must not keep the app from starting
+          config.setInitializationFailTimeout(-1);
+          return new Replica(i, new HikariDataSource(config));
+        })
+        .toList();
+    checkHealth();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("jokes.replicas.healthy", replicas, all -> all.stream().filter(replica -> replica.healthy).count())
+        .description("Read replicas currently taking reads")
+        .register(registry);
+    for (var replica : replicas) {
+      Gauge.builder("jokes.replicas.connections.active", replica.dataSource, ReplicaPool::activeConnections)
+          .tag("replica", String.valueOf(replica.index))
+          .register(registry);
+    }
+  }
+
+  static final class Replica {
+
+    final int index;
+    final HikariDataSource dataSource;
+    volatile boolean healthy;
+
+    private Replica(int index, HikariDataSource dataSource) {
+      this.index = index;
+      this.dataSource = dataSource;
+    }
+  }
+
+  List<Replica> replicas() {
+    return replicas;
+  }
+
+  /**
+   * Picks the replica to read from, or returns null when none is healthy.
+   */
+  Replica select() {
+    var start = next.getAndIncrement();
+    Replica selected = null;
+    var fewestActive = Integer.MAX_VALUE;
+    for (int i = 0; i < replicas.size(); i++) {
+      var replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+      if (!replica.healthy) {
+        continue;
+      }
+      var active = activeConnections(replica.dataSource);
+      if (active < fewestActive) {
+        selected = replica;
+        fewestActive = active;
+      }
+    }
+    return selected;
+  }
+
+  private static int activeConnections(HikariDataSource dataSource) {
+    var pool = dataSource.getHikariPoolMXBean();
+    return pool == null ? 0 : pool.getActiveConnections();
+  }
+
+  @Scheduled(
+      initialDelayString = "${jokes.replicas.health-check-interval:5s}",
+      fixedDelayString = "${jokes.replicas.health-check-interval:5s}")
+  void checkHealth() {
+    for (var replica : replicas) {
+      var healthy = false;
+      try (var connection = replica.dataSource.getConnection()) {
+        healthy = connection.isValid(1);
+      } catch (SQLException ex) {
+        log.debug("Replica {} failed its health check", replica.index, ex);
+      }
+      if (healthy != replica.healthy) {
+        log.info("Replica {} is now {}", replica.index, healthy ? "healthy" : "unhealthy, reading from the primary");
+      }
+      replica.healthy = healthy;
+    }
+  }
+
+  @Override
+  public void destroy() {
+    replicas.forEach(replica -> replica.dataSource.close());
+  }
+}
@@ -0,0 +1,56 @@
+package com.denisjulio.jokes.api;
+
+import java.util.HashMap;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.denisjulio.jokes.api.jokes.PrimaryReads;
+
+/**
+ * Sends read-only transactions to a replica and everything else to the
+ * primary. Reads of an author who just wrote, reads marked with
+ * {@link PrimaryReads}, and all reads while no replica is healthy, stay on
+ * the primary.
+ * <p>
+ * The transaction is only known to be read-only once it has begun, so this
+ * must sit behind a {@code LazyConnectionDataSourceProxy} that defers taking
+ * a connection to the first statement.
+ */
+class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+  private static final String PRIMARY = "primary";
+
+  private final ReplicaPool replicaPool;
+  private final RecentWriters recentWriters;
+
+  ReplicaRoutingDataSource(DataSource primary, ReplicaPool replicaPool, RecentWriters recentWriters) {
+    this.replicaPool = replicaPool;
+    this.recentWriters = recentWriters;
+    var targets = new HashMap<Object, Object>();
+    targets.put(PRIMARY, primary);
+    replicaPool.replicas().forEach(replica -> targets.put(replica.index, replica.dataSource));
+    setTargetDataSources(targets);
+    setDefaultTargetDataSource(primary);
+    afterPropertiesSet();
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || PrimaryReads.requested()
+        || isRecentWriter()) {
+      return PRIMARY;
+    }
+    var replica = replicaPool.select();
+    return replica == null ? PRIMARY : replica.index;
+  }
+
+  private boolean isRecentWriter() {
+    var authentication = SecurityContextHolder.getContext().getAuthentication();
+    return authentication instanceof JwtAuthenticationToken && recentWriters.contains(authentication.getName());
+  }
+}
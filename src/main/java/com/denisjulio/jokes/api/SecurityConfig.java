@@ -1,6 +1,13 @@
 package com.denisjulio.jokes.api;
 
+import java.time.Clock;
+import java.time.Duration;
+
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -12,8 +19,13 @@ import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.servlet.util.matcher.MvcRequestMatcher;
+import org.springframework.web.client.RestOperations;
 import org.springframework.web.servlet.handler.HandlerMappingIntrospector;
 
+import com.denisjulio.jokes.api.metrics.TimedJwtDecoder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
@@ -22,6 +34,9 @@ public class SecurityConfig {
   @Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}")
   String jwkSetUri;
 
+  @Value("${jokes.security.jwt-cache-size:10000}")
+  long jwtCacheSize;
+
   @Bean
   public SecurityFilterChain securityFilterChain(HttpSecurity http, HandlerMappingIntrospector introspector)
       throws Exception {
@@ -30,15 +45,42 @@ public class SecurityConfig {
     http
         .authorizeHttpRequests(authorize -> authorize
             .requestMatchers(mvcReq.pattern(HttpMethod.POST, "/jokes")).hasAuthority("SCOPE_joker")
+            .requestMatchers(mvcReq.pattern(HttpMethod.POST, "/jokes/batch")).hasAuthority("SCOPE_joker")
             .requestMatchers(mvcReq.pattern(HttpMethod.DELETE, "/jokes/**")).hasAuthority("SCOPE_joker")
             .requestMatchers(mvcReq.pattern(HttpMethod.GET, "/jokes/**")).permitAll()
+            .requestMatchers(mvcReq.pattern(HttpMethod.GET, "/authors/**")).permitAll()
+            .requestMatchers(EndpointRequest.to("health")).permitAll()
             .anyRequest().authenticated())
         .oauth2ResourceServer(oauth2 -> oauth2.jwt(Customizer.withDefaults()));
     return http.build();
   }
 
   @Bean
-  public JwtDecoder jwtDecoder() {
-    return NimbusJwtDecoder.withJwkSetUri(jwkSetUri).build();
+  public JwtDecoder jwtDecoder(RestOperations jwkSetRestOperations, Cache jwkSetCache, MeterRegistry meterRegistry) {
+    var nimbusDecoder = NimbusJwtDecoder.withJwkSetUri(jwkSetUri)
+        .restOperations(jwkSetRestOperations)
+        .cache(jwkSetCache)
+        .build();
+    return new TimedJwtDecoder(
+        new CachingJwtDecoder(nimbusDecoder, jwtCacheSize, Clock.systemUTC()),
+        meterRegistry);
+  }
+
+  @Bean
+  public Cache jwkSetCache() {
+    return new ConcurrentMapCache("jwk-set");
+  }
+
+  @Bean
+  public RestOperations jwkSetRestOperations(RestTemplateBuilder builder) {
+    return builder
+        .setConnectTimeout(Duration.ofSeconds(2))
+        .setReadTimeout(Duration.ofSeconds(2))
+        .build();
+  }
+
+  @Bean
+  public JwkSetRefresher jwkSetRefresher(RestOperations jwkSetRestOperations, Cache jwkSetCache) {
+    return new JwkSetRefresher(jwkSetUri, jwkSetRestOperations, jwkSetCache);
   }
 }
@@ -0,0 +1,35 @@
+package com.denisjulio.jokes.api;
+
+import java.util.concurrent.Executors;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+/**
+ * Runs every request, and the async work Spring MVC hands off (streamed
+ * responses), on a fresh virtual thread instead of Tomcat's fixed worker
+ * pool. A request blocked on a slow query then parks cheaply instead of
+ * holding one of the few platform threads.
+ * <p>
+ * Concurrency towards Postgres is still bounded by the Hikari pool, whose
+ * waiters park rather than pin their carrier.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "jokes.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+
+  @Bean
+  public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer() {
+    return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+  }
+
+  @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+  public AsyncTaskExecutor applicationTaskExecutor() {
+    return new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor());
+  }
+}
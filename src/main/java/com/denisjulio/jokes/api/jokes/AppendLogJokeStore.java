@@ -0,0 +1,564 @@
+package com.denisjulio.jokes.api.jokes;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Embedded store keeping every joke in one memory-mapped, append-only log
+ * file, for deployments without Postgres.
+ * <p>
+ * Each write appends a single checksummed frame, either a batch of new jokes
+ * or a tombstone for a deleted one. In-memory indexes by id, author and
+ * content hash point at entries inside the mapping, so a read is a lookup and
+ * a decode with no system call. Opening the log replays it to rebuild them,
+ * stopping at the first torn or corrupt frame, which is discarded with
+ * everything after it.
+ * <p>
+ * Deleted entries and tombstones stay in the file until compaction copies
+ * the live jokes into a fresh log and moves it over the old one. It runs on a
+ * schedule once the dead share of the log reaches
+ * {@code compaction-threshold}.
+ */
+@Component
+@ConditionalOnProperty(name = "jokes.storage.engine", havingValue = "append-log")
+public class AppendLogJokeStore implements JokeStore, DisposableBean {
+
+  private static final Logger log = LoggerFactory.getLogger(AppendLogJokeStore.class);
+
+  // int payload length, int CRC32 of the type and payload, byte type
+  private static final int FRAME_HEADER = 9;
+  private static final byte PUT = 1;
+  private static final byte TOMBSTONE = 2;
+  // the next id to assign, written first by compaction so deleted ids are never reused
+  private static final byte SEQUENCE = 3;
+  // entry: long id, long version, then author, content hash and content, each length prefixed
+  private static final int ENTRY_FIXED = 16;
+  private static final int COMPACTION_BATCH = 1024;
+
+  private final Path path;
+  private final Path compactionPath;
+  private final long initialSize;
+  private final boolean sync;
+  private final double compactionThreshold;
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private final TreeMap<Long, Integer> entries = new TreeMap<>();
+  private final HashMap<String, NavigableSet<Long>> idsByAuthor = new HashMap<>();
+  private final HashMap<String, Long> idsByHash = new HashMap<>();
+  private FileChannel channel;
+  private MappedByteBuffer mapping;
+  private long nextId;
+  private volatile int end;
+  private volatile long deadBytes;
+  // set when the log couldn't be reopened after compaction swapped its file
+  private volatile Exception reopenFailure;
+
+  public AppendLogJokeStore(MeterRegistry meterRegistry,
+      @Value("${jokes.storage.append-log.path:data/jokes.log}") Path path,
+      @Value("${jokes.storage.append-log.initial-size:64MB}") DataSize initialSize,
+      @Value("${jokes.storage.append-log.sync:true}") boolean sync,
+      @Value("${jokes.storage.append-log.compaction-threshold:0.5}") double compactionThreshold) {
+    this.path = path.toAbsolutePath();
+    this.compactionPath = this.path.resolveSibling(this.path.getFileName() + ".compacting");
+    this.initialSize = initialSize.toBytes();
+    this.sync = sync;
+    this.compactionThreshold = compactionThreshold;
+    try {
+      Files.createDirectories(this.path.getParent());
+      open();
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Could not open the joke log " + this.path, ex);
+    }
+    Gauge.builder("jokes.storage.log.size", this, store -> store.end)
+        .description("Bytes written to the joke log")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+    Gauge.builder("jokes.storage.log.dead", this, store -> store.deadBytes)
+        .description("Bytes of the joke log held by deleted jokes and tombstones")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+  }
+
+  private void open() throws IOException {
+    // left behind by a compaction that never got to swap its file in
+    Files.deleteIfExists(compactionPath);
+    channel = openChannel(path);
+    map(Math.max(channel.size(), initialSize));
+    entries.clear();
+    idsByAuthor.clear();
+    idsByHash.clear();
+    nextId = 1L;
+    deadBytes = 0L;
+    replay();
+  }
+
+  protected FileChannel openChannel(Path log) throws IOException {
+    return FileChannel.open(log, CREATE, READ, WRITE);
+  }
+
+  // mapping past the end of the file grows it, with zeros
+  private void map(long size) throws IOException {
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException("The joke log can't grow past 2GB, it needs compacting");
+    }
+    mapping = channel.map(MapMode.READ_WRITE, 0, size);
+  }
+
+  private void replay() {
+    var position = 0;
+    var capacity = mapping.capacity();
+    while (capacity - position >= FRAME_HEADER) {
+      var length = mapping.getInt(position);
+      if (length <= 0 || length > capacity - position - FRAME_HEADER
+          || mapping.getInt(position + 4) != checksum(mapping.slice(position + 8, length + 1))) {
+        break;
+      }
+      apply(mapping.get(position + 8), position + FRAME_HEADER, length);
+      position += FRAME_HEADER + length;
+    }
+    end = position;
+    if (capacity - position >= 4 && mapping.getInt(position) != 0) {
+      log.warn("Discarding a torn or corrupt tail of the joke log {} at offset {}", path, position);
+      // zeroed, so no stale frame past the next append can resurface on a later replay
+      var zeros = new byte[64 * 1024];
+      for (var offset = position; offset < capacity; offset += zeros.length) {
+        mapping.put(offset, zeros, 0, Math.min(zeros.length, capacity - offset));
+      }
+      mapping.force();
+    }
+  }
+
+  private void apply(byte type, int payload, int length) {
+    switch (type) {
+      case PUT -> {
+        var entry = payload + 4;
+        for (int i = mapping.getInt(payload); i > 0; i--) {
+          index(entry);
+          entry += entryLength(entry);
+        }
+      }
+      case TOMBSTONE -> {
+        var id = mapping.getLong(payload);
+        unindex(id);
+        nextId = Math.max(nextId, id + 1);
+        deadBytes += FRAME_HEADER + length;
+      }
+      case SEQUENCE -> nextId = Math.max(nextId, mapping.getLong(payload));
+      default -> throw new IllegalStateException("Unknown frame type " + type + " in the joke log " + path);
+    }
+  }
+
+  private void index(int entry) {
+    var id = mapping.getLong(entry);
+    entries.put(id, entry);
+    idsByAuthor.computeIfAbsent(readAuthor(entry), author -> new TreeSet<>()).add(id);
+    idsByHash.put(readHash(entry), id);
+    nextId = Math.max(nextId, id + 1);
+  }
+
+  private void unindex(long id) {
+    var entry = entries.remove(id);
+    if (entry == null) {
+      return;
+    }
+    var author = readAuthor(entry);
+    var ids = idsByAuthor.get(author);
+    ids.remove(id);
+    if (ids.isEmpty()) {
+      idsByAuthor.remove(author);
+    }
+    idsByHash.remove(readHash(entry));
+    deadBytes += entryLength(entry);
+  }
+
+  @Override
+  public Optional<JokeView> findViewById(Long id) {
+    return read(() -> Optional.ofNullable(entries.get(id)).map(this::readView));
+  }
+
+  @Override
+  public List<JokeView> findViewsByIdIn(Collection<Long> ids) {
+    return read(() -> ids.stream()
+        .map(entries::get)
+        .filter(Objects::nonNull)
+        .map(this::readView)
+        .toList());
+  }
+
+  @Override
+  public List<JokeView> findViewsAfter(Long id, int limit) {
+    return read(() -> entries.tailMap(id, false).values().stream()
+        .limit(limit)
+        .map(this::readView)
+        .toList());
+  }
+
+  @Override
+  public List<JokeView> findViewsByAuthorAfter(String authorId, Long id, int limit) {
+    return read(() -> idsByAuthor.getOrDefault(authorId, Collections.emptyNavigableSet()).tailSet(id, false)
+        .stream()
+        .limit(limit)
+        .map(jokeId -> readView(entries.get(jokeId)))
+        .toList());
+  }
+
+  /**
+   * Streams the jokes present when it was called, each one read when it is
+   * reached. Those deleted in the meantime are skipped.
+   */
+  @Override
+  public Stream<JokeView> streamAllViews() {
+    return read(() -> List.copyOf(entries.keySet())).stream()
+        .map(this::findViewById)
+        .flatMap(Optional::stream);
+  }
+
+  @Override
+  public Stream<Long> streamIds() {
+    return read(() -> List.copyOf(entries.keySet())).stream();
+  }
+
+  @Override
+  public Stream<AuthorJokesCount> streamAuthorCounts() {
+    return read(() -> idsByAuthor.entrySet().stream()
+        .map(author -> new AuthorJokesCount(author.getKey(), author.getValue().size()))
+        .toList())
+        .stream();
+  }
+
+  @Override
+  public Stream<String> streamContentHashes() {
+    return read(() -> List.copyOf(idsByHash.keySet())).stream();
+  }
+
+  @Override
+  public long count() {
+    return read(entries::size);
+  }
+
+  @Override
+  public boolean existsById(Long id) {
+    return read(() -> entries.containsKey(id));
+  }
+
+  @Override
+  public Optional<Joke> findByContentHash(String contentHash) {
+    return read(() -> Optional.ofNullable(idsByHash.get(contentHash)).map(id -> readJoke(entries.get(id))));
+  }
+
+  @Override
+  public List<Joke> findByContentHashIn(Collection<String> contentHashes) {
+    return read(() -> contentHashes.stream()
+        .map(idsByHash::get)
+        .filter(Objects::nonNull)
+        .map(id -> readJoke(entries.get(id)))
+        .toList());
+  }
+
+  @Override
+  public Joke save(Joke joke) {
+    return saveAll(List.of(joke)).get(0);
+  }
+
+  /**
+   * Appends all jokes as one frame, so a crash leaves either all or none of
+   * them in the log.
+   */
+  @Override
+  public List<Joke> saveAll(List<Joke> jokes) {
+    if (jokes.isEmpty()) {
+      return jokes;
+    }
+    var encoded = jokes.stream().map(EncodedJoke::of).toList();
+    lock.writeLock().lock();
+    try {
+      checkOpen();
+      var hashes = new HashSet<String>();
+      for (var joke : jokes) {
+        // what the unique index on content-hash does for the JPA store
+        if (idsByHash.containsKey(joke.getContentHash()) || !hashes.add(joke.getContentHash())) {
+          throw new DataIntegrityViolationException("A joke with content hash " + joke.getContentHash()
+              + " is already stored");
+        }
+      }
+      var payload = ByteBuffer.allocate(4 + encoded.stream().mapToInt(EncodedJoke::length).sum());
+      payload.putInt(jokes.size());
+      var firstId = nextId;
+      for (int i = 0; i < encoded.size(); i++) {
+        encoded.get(i).writeTo(payload, firstId + i);
+      }
+      var entry = append(PUT, payload.flip()) + 4;
+      for (int i = 0; i < jokes.size(); i++) {
+        jokes.get(i).assign(firstId + i, 0L);
+        index(entry);
+        entry += encoded.get(i).length();
+      }
+      return jokes;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public int deleteByIdAndAuthorId(Long id, String authorId) {
+    lock.writeLock().lock();
+    try {
+      checkOpen();
+      var entry = entries.get(id);
+      if (entry == null || !readAuthor(entry).equals(authorId)) {
+        return 0;
+      }
+      append(TOMBSTONE, ByteBuffer.allocate(8).putLong(0, id));
+      unindex(id);
+      deadBytes += FRAME_HEADER + 8;
+      return 1;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Scheduled(
+      initialDelayString = "${jokes.storage.append-log.compaction-interval:1m}",
+      fixedDelayString = "${jokes.storage.append-log.compaction-interval:1m}")
+  void compactIfWorthIt() {
+    var written = end;
+    if (reopenFailure != null || written > 0 && (double) deadBytes / written >= compactionThreshold) {
+      compact();
+    }
+  }
+
+  /**
+   * Copies the live jokes into a new log, makes it durable and moves it over
+   * the current one. Reads and writes wait meanwhile, for about the time of
+   * one sequential copy of the live data.
+   * <p>
+   * Should reopening the new file fail, every call fails until a later
+   * compaction, scheduled or not, manages to reopen it.
+   */
+  public void compact() {
+    lock.writeLock().lock();
+    try {
+      if (reopenFailure != null) {
+        reopen();
+        log.info("Reopened the joke log {}", path);
+        return;
+      }
+      var before = end;
+      try (var out = FileChannel.open(compactionPath, CREATE, TRUNCATE_EXISTING, WRITE)) {
+        writeFully(out, frame(SEQUENCE, ByteBuffer.allocate(8).putLong(0, nextId)));
+        var live = new ArrayList<>(entries.values());
+        for (int from = 0; from < live.size(); from += COMPACTION_BATCH) {
+          var batch = live.subList(from, Math.min(from + COMPACTION_BATCH, live.size()));
+          var payload = ByteBuffer.allocate(4 + batch.stream().mapToInt(this::entryLength).sum());
+          payload.putInt(batch.size());
+          for (var entry : batch) {
+            payload.put(mapping.slice(entry, entryLength(entry)));
+          }
+          writeFully(out, frame(PUT, payload.flip()));
+        }
+        out.force(true);
+      }
+      Files.move(compactionPath, path, ATOMIC_MOVE, REPLACE_EXISTING);
+      // the mapping now belongs to the replaced file, writes to it would be lost
+      reopen();
+      // the rename itself only survives a crash once the directory is forced
+      try (var directory = FileChannel.open(path.toAbsolutePath().getParent(), READ)) {
+        directory.force(true);
+      }
+      log.info("Compacted the joke log {} from {} to {} bytes", path, before, end);
+    } catch (IOException ex) {
+      throw new DataAccessResourceFailureException("Could not compact the joke log " + path, ex);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void destroy() throws IOException {
+    lock.writeLock().lock();
+    try {
+      if (reopenFailure == null) {
+        mapping.force();
+      }
+      channel.close();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  // callers hold the write lock
+  private void reopen() {
+    try {
+      channel.close();
+      open();
+      reopenFailure = null;
+    } catch (IOException | RuntimeException ex) {
+      reopenFailure = ex;
+      throw new DataAccessResourceFailureException("Could not reopen the joke log " + path, ex);
+    }
+  }
+
+  private void checkOpen() {
+    var failure = reopenFailure;
+    if (failure != null) {
+      throw new DataAccessResourceFailureException("The joke log " + path
+          + " could not be reopened after compaction, waiting for the next attempt", failure);
+    }
+  }
+
+  // callers hold the write lock, returns where the payload landed
+  private int append(byte type, ByteBuffer payload) {
+    var frame = frame(type, payload);
+    var length = frame.remaining();
+    if (length > mapping.capacity() - end) {
+      try {
+        // doubling stops at the 2GB a mapping can hold, only a frame past that fails
+        var needed = (long) end + length;
+        map(Math.max(Math.min(2L * mapping.capacity(), Integer.MAX_VALUE), needed));
+      } catch (IOException ex) {
+        throw new DataAccessResourceFailureException("Could not grow the joke log " + path, ex);
+      }
+    }
+    var position = end;
+    mapping.put(position, frame, 0, length);
+    if (sync) {
+      mapping.force(position, length);
+    }
+    end = position + length;
+    return position + FRAME_HEADER;
+  }
+
+  private static ByteBuffer frame(byte type, ByteBuffer payload) {
+    var frame = ByteBuffer.allocate(FRAME_HEADER + payload.remaining());
+    frame.putInt(payload.remaining()).putInt(0).put(type).put(payload).flip();
+    return frame.putInt(4, checksum(frame.slice(8, frame.limit() - 8)));
+  }
+
+  private static int checksum(ByteBuffer bytes) {
+    var crc = new CRC32();
+    crc.update(bytes);
+    return (int) crc.getValue();
+  }
+
+  private static void writeFully(FileChannel out, ByteBuffer bytes) throws IOException {
+    while (bytes.hasRemaining()) {
+      out.write(bytes);
+    }
+  }
+
+  private <T> T read(Supplier<T> reader) {
+    lock.readLock().lock();
+    try {
+      checkOpen();
+      return reader.get();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private JokeView readView(int entry) {
+    var content = contentAt(entry);
+    return new JokeView(mapping.getLong(entry), readString(content + 4, mapping.getInt(content)),
+        readAuthor(entry), mapping.getLong(entry + 8));
+  }
+
+  private Joke readJoke(int entry) {
+    var view = readView(entry);
+    return new Joke(view.id(), view.content(), view.authorId(), view.version());
+  }
+
+  private String readAuthor(int entry) {
+    return readString(entry + ENTRY_FIXED + 2, Short.toUnsignedInt(mapping.getShort(entry + ENTRY_FIXED)));
+  }
+
+  private String readHash(int entry) {
+    var hash = hashAt(entry);
+    return readString(hash + 2, Short.toUnsignedInt(mapping.getShort(hash)));
+  }
+
+  private int hashAt(int entry) {
+    return entry + ENTRY_FIXED + 2 + Short.toUnsignedInt(mapping.getShort(entry + ENTRY_FIXED));
+  }
+
+  private int contentAt(int entry) {
+    var hash = hashAt(entry);
+    return hash + 2 + Short.toUnsignedInt(mapping.getShort(hash));
+  }
+
+  private int entryLength(int entry) {
+    var content = contentAt(entry);
+    return content + 4 + mapping.getInt(content) - entry;
+  }
+
+  // the one copy left, out of the page cache and into the String
+  private String readString(int position, int length) {
+    var bytes = new byte[length];
+    mapping.get(position, bytes);
+    return new String(bytes, UTF_8);
+  }
+
+  private record EncodedJoke(byte[] authorId, byte[] contentHash, byte[] content) {
+
+    static EncodedJoke of(Joke joke) {
+      var authorId = joke.getAuthorId().getBytes(UTF_8);
+      if (authorId.length > 0xFFFF) {
+        throw new DataIntegrityViolationException("Author id of " + authorId.length + " bytes is too long");
+      }
+      return new EncodedJoke(authorId, joke.getContentHash().getBytes(UTF_8), joke.getContent().getBytes(UTF_8));
+    }
+
+    int length() {
+      return ENTRY_FIXED + 2 + authorId.length + 2 + contentHash.length + 4 + content.length;
+    }
+
+    void writeTo(ByteBuffer buffer, long id) {
+      buffer.putLong(id).putLong(0L)
+          .putShort((short) authorId.length).put(authorId)
+          .putShort((short) contentHash.length).put(contentHash)
+          .putInt(content.length).put(content);
+    }
+  }
+}
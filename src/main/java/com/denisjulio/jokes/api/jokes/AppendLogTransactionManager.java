@@ -0,0 +1,53 @@
+package com.denisjulio.jokes.api.jokes;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Stands in for the JPA transaction manager when jokes live in the
+ * {@link AppendLogJokeStore}, where every write is atomic and durable on its
+ * own. There is nothing to commit or roll back, but transaction
+ * synchronization still runs, so transactional event listeners fire when the
+ * outermost transactional method returns, as they do with Postgres.
+ */
+@Component("transactionManager")
+@ConditionalOnProperty(name = "jokes.storage.engine", havingValue = "append-log")
+public class AppendLogTransactionManager extends AbstractPlatformTransactionManager {
+
+  private static final Object TRANSACTION = new Object();
+
+  @Override
+  protected Object doGetTransaction() {
+    return TRANSACTION;
+  }
+
+  @Override
+  protected boolean isExistingTransaction(Object transaction) {
+    return TransactionSynchronizationManager.isActualTransactionActive();
+  }
+
+  @Override
+  protected void doBegin(Object transaction, TransactionDefinition definition) {
+  }
+
+  @Override
+  protected Object doSuspend(Object transaction) {
+    return TRANSACTION;
+  }
+
+  @Override
+  protected void doResume(Object transaction, Object suspendedResources) {
+  }
+
+  @Override
+  protected void doCommit(DefaultTransactionStatus status) {
+  }
+
+  @Override
+  protected void doRollback(DefaultTransactionStatus status) {
+  }
+}
@@ -0,0 +1,146 @@
+package com.denisjulio.jokes.api.jokes;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Per-author joke counters, so a count is a map lookup instead of a query.
+ * <p>
+ * Seeded from a single grouped count before the web server starts accepting
+ * requests and kept current from committed save and delete events. Reseeded
+ * when other nodes' changes may have been missed. Authors whose count drops
+ * to zero are forgotten.
+ */
+@Component
+public class AuthorJokeCounts implements SmartInitializingSingleton {
+
+  private final JokeStore jokeStore;
+  // one snapshot for the count and for telling which changes it already has
+  private final TransactionTemplate snapshotTx;
+  // changes share the read side, only swapping in reseeded counts is exclusive
+  private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+  private volatile ConcurrentHashMap<String, Long> counts = new ConcurrentHashMap<>();
+  // changes made while a reseed runs, in commit order, null otherwise
+  private volatile List<Change> changedDuringReseed;
+
+  public AuthorJokeCounts(JokeStore jokeStore, PlatformTransactionManager transactionManager) {
+    this.jokeStore = jokeStore;
+    this.snapshotTx = new TransactionTemplate(transactionManager);
+    this.snapshotTx.setReadOnly(true);
+    this.snapshotTx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+  }
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    reseed();
+  }
+
+  @EventListener
+  void onJokesInvalidated(JokesInvalidatedEvent event) {
+    reseed();
+  }
+
+  /**
+   * Counts into a fresh map, so lookups keep being answered meanwhile, and
+   * swaps it in. Of the changes committed while counting, only those the
+   * count's snapshot doesn't already hold are applied on top.
+   */
+  private synchronized void reseed() {
+    swapLock.writeLock().lock();
+    try {
+      changedDuringReseed = new ArrayList<>();
+    } finally {
+      swapLock.writeLock().unlock();
+    }
+    try {
+      PrimaryReads.run(() -> snapshotTx.executeWithoutResult(status -> {
+        var reseeded = new ConcurrentHashMap<String, Long>();
+        try (var authorCounts = jokeStore.streamAuthorCounts()) {
+          authorCounts.forEach(authorCount -> add(reseeded, authorCount.authorId(), authorCount.count()));
+        }
+        // held until the swap, so no change slips in between the check and it
+        swapLock.writeLock().lock();
+        try {
+          replay(reseeded, changedDuringReseed);
+          counts = reseeded;
+        } finally {
+          swapLock.writeLock().unlock();
+        }
+      }));
+    } finally {
+      // a failed reseed keeps the counts it would have replaced
+      swapLock.writeLock().lock();
+      try {
+        changedDuringReseed = null;
+      } finally {
+        swapLock.writeLock().unlock();
+      }
+    }
+  }
+
+  /**
+   * Applies each change only if it moves the joke in or out of what has been
+   * counted so far, starting from the jokes the count's snapshot holds.
+   */
+  private void replay(ConcurrentHashMap<String, Long> reseeded, List<Change> changes) {
+    if (changes.isEmpty()) {
+      return;
+    }
+    var changedIds = changes.stream().map(Change::jokeId).collect(Collectors.toSet());
+    var counted = new HashSet<Long>();
+    jokeStore.findViewsByIdIn(changedIds).forEach(joke -> counted.add(joke.id()));
+    for (var change : changes) {
+      if (change.saved() ? counted.add(change.jokeId()) : counted.remove(change.jokeId())) {
+        add(reseeded, change.authorId(), change.saved() ? 1 : -1);
+      }
+    }
+  }
+
+  public AuthorJokesCount get(String authorId) {
+    return new AuthorJokesCount(authorId, counts.getOrDefault(authorId, 0L));
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  void onJokeSaved(JokeSavedEvent event) {
+    change(new Change(event.joke().getId(), event.joke().getAuthorId(), true));
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  void onJokeDeleted(JokeDeletedEvent event) {
+    change(new Change(event.jokeId(), event.authorId(), false));
+  }
+
+  private void change(Change change) {
+    swapLock.readLock().lock();
+    try {
+      var pending = changedDuringReseed;
+      if (pending != null) {
+        synchronized (pending) {
+          pending.add(change);
+        }
+      }
+      add(counts, change.authorId(), change.saved() ? 1 : -1);
+    } finally {
+      swapLock.readLock().unlock();
+    }
+  }
+
+  private static void add(ConcurrentHashMap<String, Long> counts, String authorId, long delta) {
+    counts.merge(authorId, delta, (count, more) -> count + more == 0 ? null : count + more);
+  }
+
+  private record Change(long jokeId, String authorId, boolean saved) {
+  }
+}
@@ -0,0 +1,7 @@
+package com.denisjulio.jokes.api.jokes;
+
+/**
+ * Number of jokes an author currently has.
+ */
+public record AuthorJokesCount(String authorId, long count) {
+}
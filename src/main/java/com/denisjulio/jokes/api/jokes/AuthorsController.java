@@ -0,0 +1,23 @@
+package com.denisjulio.jokes.api.jokes;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/authors")
+public class AuthorsController {
+
+  private final JokesService jokesService;
+
+  public AuthorsController(JokesService jokesService) {
+    this.jokesService = jokesService;
+  }
+
+  @GetMapping("/{authorId}/jokes/count")
+  public ResponseEntity<AuthorJokesCount> countJokes(@PathVariable("authorId") String authorId) {
+    return ResponseEntity.ok(jokesService.countJokesByAuthor(authorId));
+  }
+}
@@ -0,0 +1,53 @@
+package com.denisjulio.jokes.api.jokes;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over keys that already are uniform 128-bit hashes, so the
+ * probe positions are derived from the two halves by double hashing instead
+ * of hashing again. Adds are lock-free and safe to race with lookups.
+ * Entries can't be removed.
+ */
+final class BloomFilter {
+
+  private final AtomicLongArray words;
+  private final long bits;
+  private final int probes;
+
+  /**
+   * Sized for {@code expectedEntries} at the given false positive rate.
+   */
+  BloomFilter(long expectedEntries, double falsePositiveRate) {
+    var optimalBits = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    var wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (optimalBits + 63) / 64));
+    this.words = new AtomicLongArray(wordCount);
+    this.bits = wordCount * 64L;
+    this.probes = (int) Math.max(1, Math.round((double) bits / Math.max(1, expectedEntries) * Math.log(2)));
+  }
+
+  void add(long high, long low) {
+    for (int i = 0; i < probes; i++) {
+      var bit = bit(high, low, i);
+      var mask = 1L << bit;
+      var word = (int) (bit >>> 6);
+      long current;
+      while (((current = words.get(word)) & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+        // another bit of the same word was set meanwhile, retry
+      }
+    }
+  }
+
+  boolean mightContain(long high, long low) {
+    for (int i = 0; i < probes; i++) {
+      var bit = bit(high, low, i);
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private long bit(long high, long low, int probe) {
+    return Math.floorMod(high + probe * low, bits);
+  }
+}
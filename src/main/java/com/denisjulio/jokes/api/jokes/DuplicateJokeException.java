@@ -0,0 +1,19 @@
+package com.denisjulio.jokes.api.jokes;
+
+/**
+ * A submission reposts a joke that is already saved, which is carried along
+ * so it can be answered with.
+ */
+public class DuplicateJokeException extends RuntimeException {
+
+  private final transient Joke existing;
+
+  public DuplicateJokeException(Joke existing) {
+    super("Joke " + existing.getId() + " already has this content");
+    this.existing = existing;
+  }
+
+  public Joke getExisting() {
+    return existing;
+  }
+}
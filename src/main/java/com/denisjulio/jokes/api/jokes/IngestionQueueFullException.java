@@ -0,0 +1,8 @@
+package com.denisjulio.jokes.api.jokes;
+
+public class IngestionQueueFullException extends RuntimeException {
+
+  public IngestionQueueFullException() {
+    super("The joke ingestion queue is full");
+  }
+}
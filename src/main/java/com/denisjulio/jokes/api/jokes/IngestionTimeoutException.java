@@ -0,0 +1,8 @@
+package com.denisjulio.jokes.api.jokes;
+
+public class IngestionTimeoutException extends RuntimeException {
+
+  public IngestionTimeoutException() {
+    super("The queued joke was not committed in time");
+  }
+}
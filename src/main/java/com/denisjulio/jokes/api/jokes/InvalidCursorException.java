@@ -0,0 +1,8 @@
+package com.denisjulio.jokes.api.jokes;
+
+public class InvalidCursorException extends RuntimeException {
+
+  public InvalidCursorException(String cursor) {
+    super("Invalid pagination cursor " + cursor);
+  }
+}
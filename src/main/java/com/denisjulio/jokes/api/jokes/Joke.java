@@ -1,19 +1,28 @@
 package com.denisjulio.jokes.api.jokes;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
-@Table(name = "joke")
+// the author index serves per-author keyset pages, and counts from the index alone
+@Table(name = "joke", indexes = {
+    @Index(name = "joke_author_id_idx", columnList = "author-id, id"),
+    @Index(name = "joke_content_hash_idx", columnList = "content-hash", unique = true)})
 @Entity
 public class Joke {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.SEQUENCE)
-    private Long id;
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "joke_seq")
+  @SequenceGenerator(name = "joke_seq", sequenceName = "joke_seq", allocationSize = 50)
+  private Long id;
 
   @Column(name = "content", nullable = false)
   private String content;
@@ -21,11 +30,33 @@ public class Joke {
   @Column(name = "author-id", nullable = false)
   private String authorId;
 
+  // null only for reposts that predate deduplication, see V2__add_joke_content_hash.sql
+  @Column(name = "content-hash", length = 64)
+  private String contentHash;
+
+  @Version
+  @Column(name = "version", nullable = false)
+  private Long version;
+
   public Joke() {}
 
   public Joke(String content, String authorId) {
     this.content = content;
     this.authorId = authorId;
+    this.contentHash = JokeContentHash.of(content);
+  }
+
+  // a joke as another node saved it, see JokeChangeChannel
+  Joke(Long id, String content, String authorId, Long version) {
+    this(content, authorId);
+    this.id = id;
+    this.version = version;
+  }
+
+  // the append log assigns ids itself, Hibernate sets them through the field
+  void assign(Long id, Long version) {
+    this.id = id;
+    this.version = version;
   }
 
   public Long getId() {
@@ -38,6 +69,7 @@ public class Joke {
 
   public void setContent(String content) {
     this.content = content;
+    this.contentHash = JokeContentHash.of(content);
   }
 
   public String getAuthorId() {
@@ -47,4 +79,14 @@ public class Joke {
   public void setAuthorId(String authorId) {
     this.authorId = authorId;
   }
+
+  @JsonIgnore
+  public String getContentHash() {
+    return contentHash;
+  }
+
+  @JsonIgnore
+  public Long getVersion() {
+    return version;
+  }
 }
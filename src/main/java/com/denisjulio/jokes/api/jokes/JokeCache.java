@@ -0,0 +1,99 @@
+package com.denisjulio.jokes.api.jokes;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded read-through cache of jokes by id. Misses are cached too, for a much
+ * shorter time, so repeated lookups of unknown ids don't reach the database.
+ * Entries are dropped once a save or delete has committed, here or on
+ * another node.
+ */
+@Component
+public class JokeCache {
+
+  private final AsyncCache<Long, Optional<JokeView>> cache;
+
+  public JokeCache(MeterRegistry meterRegistry,
+      @Value("${jokes.cache.maximum-size:100000}") long maximumSize,
+      @Value("${jokes.cache.ttl:10m}") Duration ttl,
+      @Value("${jokes.cache.negative-ttl:5s}") Duration negativeTtl) {
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfter(new HitOrMissExpiry(ttl, negativeTtl))
+        .recordStats()
+        .buildAsync();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "jokes");
+  }
+
+  /**
+   * Returns the cached lookup for {@code jokeId}, calling {@code loader} on a
+   * miss. Concurrent misses for the same id share a single load.
+   * <p>
+   * The load runs on the calling thread after the cache has registered a
+   * pending future, not inside the map's compute, so no lock is held across
+   * the database round trip and virtual threads don't get pinned to their
+   * carrier while waiting on it.
+   */
+  public Optional<JokeView> get(Long jokeId, Function<Long, Optional<JokeView>> loader) {
+    var pending = new CompletableFuture<Optional<JokeView>>();
+    var lookup = cache.get(jokeId, (id, executor) -> pending);
+    if (lookup == pending) {
+      try {
+        pending.complete(loader.apply(jokeId));
+      } catch (RuntimeException ex) {
+        // failed futures are dropped by the cache, the next caller retries
+        pending.completeExceptionally(ex);
+        throw ex;
+      }
+    }
+    return lookup.join();
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  void onJokeSaved(JokeSavedEvent event) {
+    cache.synchronous().invalidate(event.joke().getId());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  void onJokeDeleted(JokeDeletedEvent event) {
+    cache.synchronous().invalidate(event.jokeId());
+  }
+
+  @EventListener
+  void onJokesInvalidated(JokesInvalidatedEvent event) {
+    cache.synchronous().invalidateAll();
+  }
+
+  private record HitOrMissExpiry(Duration ttl, Duration negativeTtl) implements Expiry<Long, Optional<JokeView>> {
+
+    @Override
+    public long expireAfterCreate(Long key, Optional<JokeView> value, long currentTime) {
+      return value.isPresent() ? ttl.toNanos() : negativeTtl.toNanos();
+    }
+
+    @Override
+    public long expireAfterUpdate(Long key, Optional<JokeView> value, long currentTime, long currentDuration) {
+      return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(Long key, Optional<JokeView> value, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
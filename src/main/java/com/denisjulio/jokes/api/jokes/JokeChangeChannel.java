@@ -0,0 +1,243 @@
+package com.denisjulio.jokes.api.jokes;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Keeps the in-memory state of several nodes sharing one database coherent,
+ * over Postgres {@code LISTEN}/{@code NOTIFY} so no broker is needed.
+ * <p>
+ * Every save and delete sends a notification from within its own
+ * transaction, so it is delivered if and only if the change commits. Each
+ * node listens on a dedicated connection, outside the pool, and republishes
+ * what other nodes changed as remote {@link JokeSavedEvent}s and
+ * {@link JokeDeletedEvent}s, which the cache, the indexes and the feed
+ * already apply.
+ * <p>
+ * Notifications sent while a node isn't listening are lost, so each time
+ * the listener reconnects a {@link JokesInvalidatedEvent} is published, off
+ * the listener thread, and local caches start over. The first connection
+ * skips that, the state was loaded from the database just before; only
+ * changes committed in the moment between that load and the first
+ * {@code LISTEN} can be missed, until the next reconnect.
+ */
+@Component
+@ConditionalOnProperty(name = "jokes.coherence.enabled", havingValue = "true")
+public class JokeChangeChannel implements SmartLifecycle {
+
+  private static final Logger log = LoggerFactory.getLogger(JokeChangeChannel.class);
+
+  private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+  private static final int POLL_MILLIS = 500;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final JdbcConnectionDetails connectionDetails;
+  private final ApplicationEventPublisher eventPublisher;
+  private final ObjectMapper objectMapper;
+  private final String channel;
+  private final Duration reconnectDelay;
+  private final String nodeId = UUID.randomUUID().toString();
+  private final Counter received;
+  private final Counter flushes;
+  private final CountDownLatch listening = new CountDownLatch(1);
+  private final ScheduledExecutorService invalidator = Executors.newSingleThreadScheduledExecutor(
+      runnable -> Thread.ofPlatform().name("joke-changes-flush").daemon().unstarted(runnable));
+  private volatile Thread listener;
+  private volatile boolean running;
+
+  public JokeChangeChannel(JdbcTemplate jdbcTemplate, JdbcConnectionDetails connectionDetails,
+      ApplicationEventPublisher eventPublisher, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+      @Value("${jokes.coherence.channel:joke_changes}") String channel,
+      @Value("${jokes.coherence.reconnect-delay:1s}") Duration reconnectDelay) {
+    if (!CHANNEL_NAME.matcher(channel).matches()) {
+      throw new IllegalArgumentException("Not a plain channel name: " + channel);
+    }
+    this.jdbcTemplate = jdbcTemplate;
+    this.connectionDetails = connectionDetails;
+    this.eventPublisher = eventPublisher;
+    this.objectMapper = objectMapper;
+    this.channel = channel;
+    this.reconnectDelay = reconnectDelay;
+    this.received = Counter.builder("jokes.coherence.received")
+        .description("Changes made on other nodes and applied here")
+        .register(meterRegistry);
+    this.flushes = Counter.builder("jokes.coherence.flushes")
+        .description("Local caches reloaded because the listener reconnected")
+        .register(meterRegistry);
+  }
+
+  /**
+   * A change as sent to the other nodes. Carries the whole joke on save so
+   * they can update their indexes without a query.
+   */
+  record JokeChange(String origin, Long id, String content, String authorId, Long version, boolean deleted) {
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+  void onJokeSaved(JokeSavedEvent event) {
+    if (!event.remote()) {
+      var joke = event.joke();
+      send(new JokeChange(nodeId, joke.getId(), joke.getContent(), joke.getAuthorId(), joke.getVersion(), false));
+    }
+  }
+
+  @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+  void onJokeDeleted(JokeDeletedEvent event) {
+    if (!event.remote()) {
+      send(new JokeChange(nodeId, event.jokeId(), null, event.authorId(), null, true));
+    }
+  }
+
+  // on the transaction's own connection, NOTIFY is only delivered on commit
+  private void send(JokeChange change) {
+    try {
+      jdbcTemplate.queryForList("select pg_notify(?, ?)", channel, objectMapper.writeValueAsString(change));
+    } catch (JsonProcessingException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  private void listen() {
+    var connected = false;
+    while (running) {
+      try (var connection = DriverManager.getConnection(connectionDetails.getJdbcUrl(),
+          connectionDetails.getUsername(), connectionDetails.getPassword())) {
+        try (var statement = connection.createStatement()) {
+          statement.execute("LISTEN " + channel);
+        }
+        listening.countDown();
+        if (connected) {
+          // whatever was sent while we were away is lost to us
+          invalidator.execute(this::invalidate);
+        }
+        connected = true;
+        var notifications = connection.unwrap(PGConnection.class);
+        while (running) {
+          var batch = notifications.getNotifications(POLL_MILLIS);
+          if (batch != null) {
+            for (var notification : batch) {
+              apply(notification.getParameter());
+            }
+          }
+        }
+      } catch (SQLException ex) {
+        if (running) {
+          log.warn("Lost the joke change listener connection, reconnecting in {}: {}", reconnectDelay,
+              ex.getMessage());
+          pause();
+        }
+      }
+    }
+  }
+
+  private void apply(String payload) {
+    JokeChange change;
+    try {
+      change = objectMapper.readValue(payload, JokeChange.class);
+    } catch (JsonProcessingException ex) {
+      log.warn("Ignoring malformed joke change {}", payload);
+      return;
+    }
+    if (nodeId.equals(change.origin())) {
+      return;
+    }
+    received.increment();
+    try {
+      if (change.deleted()) {
+        eventPublisher.publishEvent(new JokeDeletedEvent(change.id(), change.authorId(), true));
+      } else {
+        var joke = new Joke(change.id(), change.content(), change.authorId(), change.version());
+        eventPublisher.publishEvent(new JokeSavedEvent(joke, true));
+      }
+    } catch (RuntimeException ex) {
+      // one failing listener must not take the channel down with it
+      log.warn("Could not apply joke change {}", payload, ex);
+    }
+  }
+
+  // reloads every index, so it must not hold up the notifications meanwhile
+  private void invalidate() {
+    try {
+      flushes.increment();
+      eventPublisher.publishEvent(new JokesInvalidatedEvent());
+    } catch (RuntimeException ex) {
+      log.warn("Could not reload after the joke change listener reconnected, retrying in {}: {}",
+          reconnectDelay, ex.getMessage());
+      invalidator.schedule(this::invalidate, reconnectDelay.toNanos(), TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private void pause() {
+    try {
+      Thread.sleep(reconnectDelay);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Starts listening, and waits a little for the subscription so the node
+   * doesn't serve before it hears about other nodes' changes.
+   */
+  @Override
+  public void start() {
+    running = true;
+    listener = Thread.ofPlatform().name("joke-changes").daemon().start(this::listen);
+    try {
+      if (!listening.await(10, TimeUnit.SECONDS)) {
+        log.warn("Not listening for joke changes yet, starting anyway");
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    listener.interrupt();
+    try {
+      listener.join(Duration.ofSeconds(5));
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    invalidator.shutdownNow();
+  }
+
+  // listening before the web server takes requests, until after it stopped
+  @Override
+  public int getPhase() {
+    return SmartLifecycle.DEFAULT_PHASE - 4096;
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+}
@@ -0,0 +1,57 @@
+package com.denisjulio.jokes.api.jokes;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Hex SHA-256 of a joke's normalized content: NFKC, lower case, runs of
+ * whitespace collapsed to one space and trimmed. Two submissions that only
+ * differ in case or spacing are the same joke.
+ * <p>
+ * {@code V2__add_joke_content_hash.sql} computes the same hash in SQL for the
+ * rows that existed before, keep both in sync.
+ */
+final class JokeContentHash {
+
+  // the ASCII whitespace Postgres' regexp_replace matches too
+  private static final Pattern WHITESPACE = Pattern.compile("[ \\t\\n\\r\\f\\u000B]+");
+
+  private JokeContentHash() {
+  }
+
+  static String of(String content) {
+    if (content == null) {
+      return null;
+    }
+    var collapsed = WHITESPACE
+        .matcher(Normalizer.normalize(content, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT))
+        .replaceAll(" ");
+    // like btrim(), only the single space left at either end
+    var start = collapsed.startsWith(" ") ? 1 : 0;
+    var end = Math.max(start, collapsed.length() - (collapsed.endsWith(" ") ? 1 : 0));
+    var normalized = collapsed.substring(start, end);
+    try {
+      var digest = MessageDigest.getInstance("SHA-256").digest(normalized.getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest);
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException("Every JVM ships SHA-256", ex);
+    }
+  }
+
+  /**
+   * The first 64 bits of the hash, uniformly distributed like the rest of
+   * it.
+   */
+  static long high(String hash) {
+    return Long.parseUnsignedLong(hash, 0, 16, 16);
+  }
+
+  static long low(String hash) {
+    return Long.parseUnsignedLong(hash, 16, 32, 16);
+  }
+}
@@ -1,14 +1,53 @@
 package com.denisjulio.jokes.api.jokes;
 
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import jakarta.validation.ConstraintViolationException;
+
 @RestControllerAdvice
 public class JokeControllerAdvice {
-    
+
+  private final Duration ingestionRetryAfter;
+  private final HttpStatus duplicateStatus;
+
+  public JokeControllerAdvice(@Value("${jokes.ingestion.retry-after:1s}") Duration ingestionRetryAfter,
+      @Value("${jokes.dedup.duplicate-status:ok}") HttpStatus duplicateStatus) {
+    this.ingestionRetryAfter = ingestionRetryAfter;
+    this.duplicateStatus = duplicateStatus;
+  }
+
   @ExceptionHandler
   ResponseEntity<Object> jokeNotFoundHandler(JokeNotFoundException ex) {
     return ResponseEntity.notFound().build();
   }
+
+  @ExceptionHandler
+  ResponseEntity<Object> constraintViolationHandler(ConstraintViolationException ex) {
+    return ResponseEntity.badRequest().build();
+  }
+
+  @ExceptionHandler
+  ResponseEntity<Object> invalidCursorHandler(InvalidCursorException ex) {
+    return ResponseEntity.badRequest().build();
+  }
+
+  // either way the client gets the joke its submission repeats
+  @ExceptionHandler
+  ResponseEntity<Joke> duplicateJokeHandler(DuplicateJokeException ex) {
+    return ResponseEntity.status(duplicateStatus).body(ex.getExisting());
+  }
+
+  @ExceptionHandler({IngestionQueueFullException.class, IngestionTimeoutException.class})
+  ResponseEntity<Object> ingestionUnavailableHandler(RuntimeException ex) {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ingestionRetryAfter.toSeconds())))
+        .build();
+  }
 }
@@ -0,0 +1,32 @@
+package com.denisjulio.jokes.api.jokes;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque pagination cursor. Clients must treat it as a token, internally it is
+ * just the last id seen, base64url-encoded so the format can change later.
+ */
+public final class JokeCursor {
+
+  private static final String PREFIX = "id:";
+
+  private JokeCursor() {}
+
+  public static String encode(Long lastId) {
+    var raw = PREFIX + lastId;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static Long decode(String cursor) {
+    try {
+      var raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      if (!raw.startsWith(PREFIX)) {
+        throw new InvalidCursorException(cursor);
+      }
+      return Long.valueOf(raw.substring(PREFIX.length()));
+    } catch (IllegalArgumentException ex) {
+      throw new InvalidCursorException(cursor);
+    }
+  }
+}
@@ -0,0 +1,14 @@
+package com.denisjulio.jokes.api.jokes;
+
+/**
+ * Published by {@link JokesService} whenever a joke is removed, and by
+ * {@link JokeChangeChannel} with {@code remote} set when another node removed
+ * one. Only its author can delete a joke, so {@code authorId} is also who
+ * deleted it.
+ */
+public record JokeDeletedEvent(Long jokeId, String authorId, boolean remote) {
+
+  public JokeDeletedEvent(Long jokeId, String authorId) {
+    this(jokeId, authorId, false);
+  }
+}
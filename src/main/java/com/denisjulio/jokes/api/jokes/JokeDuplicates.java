@@ -0,0 +1,198 @@
+package com.denisjulio.jokes.api.jokes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Finds the already saved joke a submission reposts, by content hash.
+ * <p>
+ * A Bloom filter of every saved hash answers most submissions, the new ones,
+ * without a query. Only when it reports a possible match is the unique
+ * content hash index consulted. Loaded before the web server starts accepting
+ * requests and kept current from committed save events, reloaded when other
+ * nodes' saves may have been missed. Deleted jokes stay in the filter and
+ * just cost a lookup when reposted.
+ */
+@Component
+public class JokeDuplicates implements SmartInitializingSingleton {
+
+  private final JokeStore jokeStore;
+  private final TransactionTemplate readOnlyTx;
+  private final long expectedJokes;
+  private final double falsePositiveRate;
+  private final Counter duplicates;
+  private final Counter falsePositives;
+  // saves share the read side, only swapping in a reloaded filter is exclusive
+  private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+  private volatile BloomFilter savedHashes;
+  // hashes saved while a reload runs, added to the new filter, null otherwise
+  private volatile List<String> savedDuringReload;
+
+  public JokeDuplicates(JokeStore jokeStore, PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry,
+      @Value("${jokes.dedup.expected-jokes:1000000}") long expectedJokes,
+      @Value("${jokes.dedup.false-positive-rate:0.01}") double falsePositiveRate) {
+    this.jokeStore = jokeStore;
+    this.readOnlyTx = new TransactionTemplate(transactionManager);
+    this.readOnlyTx.setReadOnly(true);
+    this.expectedJokes = expectedJokes;
+    this.falsePositiveRate = falsePositiveRate;
+    this.savedHashes = new BloomFilter(expectedJokes, falsePositiveRate);
+    this.duplicates = Counter.builder("jokes.dedup.duplicates")
+        .description("Submissions answered with an already saved joke")
+        .register(meterRegistry);
+    this.falsePositives = Counter.builder("jokes.dedup.false.positives")
+        .description("Submissions the filter flagged that turned out to be new")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    reload();
+  }
+
+  @EventListener
+  void onJokesInvalidated(JokesInvalidatedEvent event) {
+    reload();
+  }
+
+  /**
+   * Fills a fresh filter while the current one keeps answering, then swaps it
+   * in with the hashes saved meanwhile. A failed reload keeps the current
+   * filter.
+   */
+  private synchronized void reload() {
+    swapLock.writeLock().lock();
+    try {
+      savedDuringReload = new ArrayList<>();
+    } finally {
+      swapLock.writeLock().unlock();
+    }
+    BloomFilter reloaded = null;
+    try {
+      reloaded = PrimaryReads.call(() -> readOnlyTx.execute(status -> {
+        // room to grow, the false positive rate climbs once the filter is over capacity
+        var filter = new BloomFilter(Math.max(expectedJokes, 2 * jokeStore.count()), falsePositiveRate);
+        try (var hashes = jokeStore.streamContentHashes()) {
+          hashes.forEach(hash -> add(filter, hash));
+        }
+        return filter;
+      }));
+    } finally {
+      swapLock.writeLock().lock();
+      try {
+        if (reloaded != null) {
+          for (var hash : savedDuringReload) {
+            add(reloaded, hash);
+          }
+          savedHashes = reloaded;
+        }
+        savedDuringReload = null;
+      } finally {
+        swapLock.writeLock().unlock();
+      }
+    }
+  }
+
+  public Optional<Joke> find(Joke joke) {
+    var hash = joke.getContentHash();
+    if (!mightBeSaved(hash)) {
+      return Optional.empty();
+    }
+    var existing = PrimaryReads.call(() -> jokeStore.findByContentHash(hash));
+    count(existing.isPresent() ? 1 : 0, existing.isPresent() ? 0 : 1);
+    return existing;
+  }
+
+  /**
+   * Saved jokes matching any of {@code jokes}, by content hash, in a single
+   * query.
+   */
+  public Map<String, Joke> findAll(Collection<Joke> jokes) {
+    var candidates = jokes.stream()
+        .map(Joke::getContentHash)
+        .filter(this::mightBeSaved)
+        .collect(Collectors.toSet());
+    if (candidates.isEmpty()) {
+      return Map.of();
+    }
+    var existing = PrimaryReads.call(() -> jokeStore.findByContentHashIn(candidates)).stream()
+        .collect(Collectors.toMap(Joke::getContentHash, Function.identity()));
+    count(existing.size(), candidates.size() - existing.size());
+    return existing;
+  }
+
+  /**
+   * Saved jokes matching any of {@code jokes}, asking the unique index for
+   * every one of them. For after a conflict, when the joke that won may not
+   * have reached the filter yet.
+   */
+  Map<String, Joke> findAllSaved(Collection<Joke> jokes) {
+    var hashes = jokes.stream()
+        .map(Joke::getContentHash)
+        .filter(Objects::nonNull)
+        .collect(Collectors.toSet());
+    return PrimaryReads.call(() -> jokeStore.findByContentHashIn(hashes)).stream()
+        .collect(Collectors.toMap(Joke::getContentHash, Function.identity()));
+  }
+
+  /**
+   * Counts submissions that were flagged as new by the filter but collided
+   * with concurrent ones on the unique index.
+   */
+  void recordRaces(long count) {
+    duplicates.increment(count);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  void onJokeSaved(JokeSavedEvent event) {
+    var hash = event.joke().getContentHash();
+    if (hash == null) {
+      return;
+    }
+    swapLock.readLock().lock();
+    try {
+      var pending = savedDuringReload;
+      if (pending != null) {
+        synchronized (pending) {
+          pending.add(hash);
+        }
+      }
+      add(savedHashes, hash);
+    } finally {
+      swapLock.readLock().unlock();
+    }
+  }
+
+  private boolean mightBeSaved(String hash) {
+    return hash != null
+        && savedHashes.mightContain(JokeContentHash.high(hash), JokeContentHash.low(hash));
+  }
+
+  private void count(int found, int missed) {
+    duplicates.increment(found);
+    falsePositives.increment(missed);
+  }
+
+  private static void add(BloomFilter filter, String hash) {
+    filter.add(JokeContentHash.high(hash), JokeContentHash.low(hash));
+  }
+}
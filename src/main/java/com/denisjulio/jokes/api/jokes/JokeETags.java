@@ -0,0 +1,51 @@
+package com.denisjulio.jokes.api.jokes;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Strong entity tags for jokes and for pages of the joke collection.
+ */
+public final class JokeETags {
+
+  private JokeETags() {}
+
+  public static String forJoke(Long jokeId, Long version) {
+    return "\"" + jokeId + "." + version + "\"";
+  }
+
+  /**
+   * A page is fully determined by the rows in the table and the request
+   * parameters, so those are all the validator needs.
+   */
+  public static String forCollection(JokesCollectionVersion version, String author, String after, Integer limit) {
+    var maxId = version.maxId() == null ? 0L : version.maxId();
+    var parameters = Integer.toHexString(Objects.hash(author, after, limit));
+    return "\"c." + maxId + "." + version.count() + "." + parameters + "\"";
+  }
+
+  /**
+   * Tag computed from the rows a page was built from, so it only ever vouches
+   * for those rows, whichever database, primary or lagging replica, they
+   * came from.
+   */
+  public static String forPage(List<JokeView> jokes, Optional<String> nextCursor) {
+    var hash = 17L;
+    for (var joke : jokes) {
+      hash = 31 * hash + joke.id();
+      hash = 31 * hash + Objects.hashCode(joke.version());
+    }
+    var lastId = jokes.isEmpty() ? 0L : jokes.get(jokes.size() - 1).id();
+    return "\"p." + lastId + "." + jokes.size() + "." + Long.toHexString(hash)
+        + (nextCursor.isPresent() ? ".n" : "") + "\"";
+  }
+
+  /**
+   * A strong tag can't be shared by differently encoded bodies, so each
+   * content coding gets its own.
+   */
+  public static String forEncoding(String etag, String contentCoding) {
+    return etag.substring(0, etag.length() - 1) + "-" + contentCoding + "\"";
+  }
+}
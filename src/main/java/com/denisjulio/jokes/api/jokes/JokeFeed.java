@@ -0,0 +1,243 @@
+package com.denisjulio.jokes.api.jokes;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Fans committed joke changes out to Server-Sent Events subscribers.
+ * <p>
+ * Subscribers hold no thread while idle: each one owns a small bounded
+ * buffer, and a virtual thread is only started to drain it when something
+ * was queued. A subscriber that can't keep up either loses its oldest
+ * buffered events or gets disconnected, depending on
+ * {@code jokes.stream.overflow}. The last {@code replay-size} events are kept
+ * so a client reconnecting with {@code Last-Event-ID} picks up where it left
+ * off; one that fell further behind receives a {@code reset} event and should
+ * reload the collection.
+ */
+@Component
+public class JokeFeed implements DisposableBean {
+
+  static final String CREATED = "joke-created";
+  static final String DELETED = "joke-deleted";
+  static final String RESET = "reset";
+
+  public enum Overflow {
+    DROP_OLDEST, DISCONNECT
+  }
+
+  private final ObjectMapper objectMapper;
+  private final int bufferSize;
+  private final Overflow overflow;
+  private final int replaySize;
+  private final Duration timeout;
+  private final Counter dropped;
+  private final ExecutorService dispatcher = Executors.newVirtualThreadPerTaskExecutor();
+  private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+  // publishing, replaying and subscribing are serialized so ids stay in order
+  private final ReentrantLock feedLock = new ReentrantLock();
+  private final ArrayDeque<FeedEvent> replay;
+  private long lastEventId;
+
+  public JokeFeed(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+      @Value("${jokes.stream.buffer-size:64}") int bufferSize,
+      @Value("${jokes.stream.overflow:drop-oldest}") Overflow overflow,
+      @Value("${jokes.stream.replay-size:256}") int replaySize,
+      @Value("${jokes.stream.timeout:30m}") Duration timeout) {
+    this.objectMapper = objectMapper;
+    this.bufferSize = bufferSize;
+    this.overflow = overflow;
+    this.replaySize = replaySize;
+    this.replay = new ArrayDeque<>(replaySize);
+    this.timeout = timeout;
+    this.dropped = Counter.builder("jokes.stream.dropped")
+        .description("Events dropped or subscribers disconnected because they fell behind")
+        .register(meterRegistry);
+    meterRegistry.gaugeCollectionSize("jokes.stream.subscribers", Tags.empty(), subscribers);
+  }
+
+  /**
+   * Opens a feed. With {@code lastEventId}, the events published after it are
+   * replayed first.
+   */
+  public SseEmitter subscribe(Long lastEventId) {
+    var subscriber = new Subscriber(new SseEmitter(timeout.toMillis()));
+    subscriber.emitter.onCompletion(() -> subscribers.remove(subscriber));
+    subscriber.emitter.onTimeout(subscriber::close);
+    subscriber.emitter.onError(ex -> subscriber.close());
+    feedLock.lock();
+    try {
+      if (lastEventId != null) {
+        var oldest = replay.isEmpty() ? lastEventId + 1 : replay.peekFirst().id();
+        if (lastEventId + 1 < oldest || lastEventId > this.lastEventId) {
+          subscriber.offer(new FeedEvent(null, RESET, "{}"));
+        } else {
+          replay.stream().filter(event -> event.id() > lastEventId).forEach(subscriber::offer);
+        }
+      }
+      subscribers.add(subscriber);
+    } finally {
+      feedLock.unlock();
+    }
+    return subscriber.emitter;
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  void onJokeSaved(JokeSavedEvent event) {
+    var joke = event.joke();
+    publish(CREATED, new JokeView(joke.getId(), joke.getContent(), joke.getAuthorId(), joke.getVersion()));
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  void onJokeDeleted(JokeDeletedEvent event) {
+    publish(DELETED, Map.of("id", event.jokeId()));
+  }
+
+  /**
+   * Keeps idle connections from being reaped by proxies, and notices clients
+   * that went away without closing.
+   */
+  @Scheduled(
+      initialDelayString = "${jokes.stream.heartbeat-interval:15s}",
+      fixedDelayString = "${jokes.stream.heartbeat-interval:15s}")
+  void heartbeat() {
+    subscribers.forEach(subscriber -> subscriber.offer(FeedEvent.HEARTBEAT));
+  }
+
+  private void publish(String name, Object payload) {
+    String data;
+    try {
+      // serialized once, whatever the number of subscribers
+      data = objectMapper.writeValueAsString(payload);
+    } catch (JsonProcessingException ex) {
+      throw new IllegalStateException(ex);
+    }
+    feedLock.lock();
+    try {
+      var event = new FeedEvent(++lastEventId, name, data);
+      if (replay.size() == replaySize) {
+        replay.pollFirst();
+      }
+      replay.addLast(event);
+      subscribers.forEach(subscriber -> subscriber.offer(event));
+    } finally {
+      feedLock.unlock();
+    }
+  }
+
+  @Override
+  public void destroy() {
+    subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    dispatcher.shutdownNow();
+  }
+
+  private record FeedEvent(Long id, String name, String data) {
+
+    static final FeedEvent HEARTBEAT = new FeedEvent(null, null, null);
+
+    SseEmitter.SseEventBuilder toSse() {
+      if (this == HEARTBEAT) {
+        return SseEmitter.event().comment("heartbeat");
+      }
+      var event = SseEmitter.event().name(name).data(data);
+      return id == null ? event : event.id(String.valueOf(id));
+    }
+  }
+
+  private final class Subscriber {
+
+    private final SseEmitter emitter;
+    private final ArrayDeque<FeedEvent> buffer = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private boolean draining;
+    private boolean closed;
+
+    private Subscriber(SseEmitter emitter) {
+      this.emitter = emitter;
+    }
+
+    void offer(FeedEvent event) {
+      lock.lock();
+      try {
+        if (closed) {
+          return;
+        }
+        if (buffer.size() == bufferSize) {
+          dropped.increment();
+          if (overflow == Overflow.DISCONNECT) {
+            closed = true;
+            buffer.clear();
+            dispatcher.execute(emitter::complete);
+            return;
+          }
+          buffer.pollFirst();
+        }
+        buffer.addLast(event);
+        if (draining) {
+          return;
+        }
+        draining = true;
+      } finally {
+        lock.unlock();
+      }
+      dispatcher.execute(this::drain);
+    }
+
+    // a client that stops reading only ever blocks its own drain
+    private void drain() {
+      while (true) {
+        FeedEvent event;
+        lock.lock();
+        try {
+          event = closed ? null : buffer.pollFirst();
+          if (event == null) {
+            draining = false;
+            return;
+          }
+        } finally {
+          lock.unlock();
+        }
+        try {
+          emitter.send(event.toSse());
+        } catch (IOException | IllegalStateException ex) {
+          close();
+          return;
+        }
+      }
+    }
+
+    void close() {
+      lock.lock();
+      try {
+        closed = true;
+        buffer.clear();
+      } finally {
+        lock.unlock();
+      }
+      subscribers.remove(this);
+      emitter.complete();
+    }
+  }
+}
@@ -0,0 +1,184 @@
+package com.denisjulio.jokes.api.jokes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.StampedLock;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * In-memory set of live joke ids, densely packed in a {@code long[]} so a
+ * uniformly random pick is a single array access. Removal swaps the last id
+ * into the freed slot, with a primitive id to position map to find it.
+ * <p>
+ * Loaded before the web server starts accepting requests and kept current
+ * from committed save and delete events. Reloaded when other nodes' changes
+ * may have been missed.
+ */
+@Component
+public class JokeIdIndex implements SmartInitializingSingleton {
+
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private final JokeStore jokeStore;
+  private final TransactionTemplate readOnlyTx;
+  private final StampedLock lock = new StampedLock();
+
+  private Ids current = new Ids();
+  // changes made while a reload runs, replayed onto the reloaded ids, null otherwise
+  private List<Change> changedDuringReload;
+
+  public JokeIdIndex(JokeStore jokeStore, PlatformTransactionManager transactionManager) {
+    this.jokeStore = jokeStore;
+    this.readOnlyTx = new TransactionTemplate(transactionManager);
+    this.readOnlyTx.setReadOnly(true);
+  }
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    reload();
+  }
+
+  @EventListener
+  void onJokesInvalidated(JokesInvalidatedEvent event) {
+    reload();
+  }
+
+  /**
+   * Loads the ids aside, so picks keep being served meanwhile, and swaps them
+   * in. Adding and removing are idempotent, so replaying changes the load
+   * already saw is harmless.
+   */
+  private synchronized void reload() {
+    var stamp = lock.writeLock();
+    try {
+      changedDuringReload = new ArrayList<>();
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+    var reloaded = new Ids();
+    var loaded = false;
+    try {
+      PrimaryReads.run(() -> readOnlyTx.executeWithoutResult(status -> {
+        try (var allIds = jokeStore.streamIds()) {
+          allIds.forEach(reloaded::add);
+        }
+      }));
+      loaded = true;
+    } finally {
+      stamp = lock.writeLock();
+      try {
+        // a failed reload keeps the ids it would have replaced
+        if (loaded) {
+          changedDuringReload.forEach(change -> change.applyTo(reloaded));
+          current = reloaded;
+        }
+        changedDuringReload = null;
+      } finally {
+        lock.unlockWrite(stamp);
+      }
+    }
+  }
+
+  public OptionalLong random() {
+    var stamp = lock.readLock();
+    try {
+      var ids = current;
+      return ids.size == 0
+          ? OptionalLong.empty()
+          : OptionalLong.of(ids.ids[ThreadLocalRandom.current().nextInt(ids.size)]);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  public int size() {
+    var stamp = lock.readLock();
+    try {
+      return current.size;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  public void add(long id) {
+    apply(new Change(id, true));
+  }
+
+  public void remove(long id) {
+    apply(new Change(id, false));
+  }
+
+  private void apply(Change change) {
+    var stamp = lock.writeLock();
+    try {
+      if (changedDuringReload != null) {
+        changedDuringReload.add(change);
+      }
+      change.applyTo(current);
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  void onJokeSaved(JokeSavedEvent event) {
+    add(event.joke().getId());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  void onJokeDeleted(JokeDeletedEvent event) {
+    remove(event.jokeId());
+  }
+
+  private record Change(long id, boolean added) {
+
+    void applyTo(Ids ids) {
+      if (added) {
+        ids.add(id);
+      } else {
+        ids.remove(id);
+      }
+    }
+  }
+
+  private static final class Ids {
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private final LongIntHashMap positions = new LongIntHashMap(INITIAL_CAPACITY);
+    private int size;
+
+    void add(long id) {
+      if (positions.get(id) != LongIntHashMap.MISSING) {
+        return;
+      }
+      if (size == ids.length) {
+        ids = Arrays.copyOf(ids, size * 2);
+      }
+      ids[size] = id;
+      positions.put(id, size);
+      size++;
+    }
+
+    void remove(long id) {
+      var position = positions.remove(id);
+      if (position == LongIntHashMap.MISSING) {
+        return;
+      }
+      var last = --size;
+      if (position != last) {
+        var moved = ids[last];
+        ids[position] = moved;
+        positions.put(moved, position);
+      }
+    }
+  }
+}
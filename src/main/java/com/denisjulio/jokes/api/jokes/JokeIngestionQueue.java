@@ -0,0 +1,231 @@
+package com.denisjulio.jokes.api.jokes;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Write-behind path for new jokes. Submissions land in a bounded lock-free
+ * queue and a single writer thread persists them in group commits: up to
+ * {@code batch-size} jokes per transaction, or whatever arrived within
+ * {@code flush-interval} of the oldest pending one. Under bursts this pays
+ * one commit, and one fsync, for many requests.
+ * <p>
+ * A full queue rejects the submission right away with
+ * {@link IngestionQueueFullException} instead of letting requests pile up,
+ * and a caller stops waiting for its commit after {@code save-timeout}.
+ */
+@Component
+@ConditionalOnProperty(name = "jokes.ingestion.mode", havingValue = "group-commit")
+public class JokeIngestionQueue implements SmartLifecycle {
+
+  private static final Logger log = LoggerFactory.getLogger(JokeIngestionQueue.class);
+
+  private final JokesService jokesService;
+  private final ConcurrentLinkedQueue<Submission> queue = new ConcurrentLinkedQueue<>();
+  // the queue itself is unbounded, producers reserve a slot here first
+  private final AtomicInteger pending = new AtomicInteger();
+  private final int capacity;
+  private final int batchSize;
+  private final long flushIntervalNanos;
+  private final Duration saveTimeout;
+  private final DistributionSummary batchSizes;
+  private volatile Thread writer;
+  private volatile boolean running;
+
+  public JokeIngestionQueue(JokesService jokesService, MeterRegistry meterRegistry,
+      @Value("${jokes.ingestion.queue-capacity:10000}") int capacity,
+      @Value("${jokes.ingestion.batch-size:200}") int batchSize,
+      @Value("${jokes.ingestion.flush-interval:5ms}") Duration flushInterval,
+      @Value("${jokes.ingestion.save-timeout:10s}") Duration saveTimeout) {
+    this.jokesService = jokesService;
+    this.capacity = capacity;
+    this.batchSize = batchSize;
+    this.flushIntervalNanos = flushInterval.toNanos();
+    this.saveTimeout = saveTimeout;
+    this.batchSizes = DistributionSummary.builder("jokes.ingestion.batch.size")
+        .description("Jokes persisted per group commit")
+        .register(meterRegistry);
+    meterRegistry.gauge("jokes.ingestion.queue.size", pending);
+  }
+
+  /**
+   * Queues {@code joke} for the next group commit. The future completes with
+   * the saved joke, id assigned, once its transaction has committed.
+   */
+  public CompletableFuture<Joke> submit(Joke joke) {
+    // reserve before checking running, so the writer can't exit in between
+    var size = pending.incrementAndGet();
+    if (size > capacity || !running) {
+      pending.decrementAndGet();
+      throw new IngestionQueueFullException();
+    }
+    var submission = new Submission(joke, new CompletableFuture<>());
+    queue.offer(submission);
+    // wake the writer to start its flush timer, or because a batch is ready
+    if (size == 1 || size == batchSize) {
+      LockSupport.unpark(writer);
+    }
+    return submission.saved();
+  }
+
+  /**
+   * Queues {@code joke} and waits for it to be committed, rethrowing whatever
+   * the write failed with. Gives up with {@link IngestionTimeoutException}
+   * after {@code save-timeout}, the joke may still be committed later.
+   */
+  public Joke save(Joke joke) {
+    try {
+      return submit(joke).get(saveTimeout.toNanos(), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException ex) {
+      throw new IngestionTimeoutException();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IngestionTimeoutException();
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new IllegalStateException("Could not save the queued joke", ex.getCause());
+    }
+  }
+
+  private void drain() {
+    try {
+      writeUntilStopped();
+    } finally {
+      // whatever ended the writer, stop taking submissions nobody would write
+      running = false;
+      Submission submission;
+      while ((submission = queue.poll()) != null) {
+        pending.decrementAndGet();
+        submission.saved().completeExceptionally(new IngestionQueueFullException());
+      }
+    }
+  }
+
+  private void writeUntilStopped() {
+    long oldestSeenAt = 0L;
+    while (running || pending.get() > 0) {
+      var size = pending.get();
+      if (size == 0) {
+        oldestSeenAt = 0L;
+        LockSupport.parkNanos(this, TimeUnit.SECONDS.toNanos(1));
+        continue;
+      }
+      if (oldestSeenAt == 0L) {
+        oldestSeenAt = System.nanoTime();
+      }
+      var waited = System.nanoTime() - oldestSeenAt;
+      if (running && size < batchSize && waited < flushIntervalNanos) {
+        LockSupport.parkNanos(this, flushIntervalNanos - waited);
+        continue;
+      }
+      flush();
+      oldestSeenAt = 0L;
+    }
+  }
+
+  private void flush() {
+    var batch = new ArrayList<Submission>(batchSize);
+    Submission submission;
+    while (batch.size() < batchSize && (submission = queue.poll()) != null) {
+      batch.add(submission);
+    }
+    pending.addAndGet(-batch.size());
+    if (batch.isEmpty()) {
+      return;
+    }
+    batchSizes.record(batch.size());
+    try {
+      commit(batch);
+    } catch (Throwable ex) {
+      // the writer lives on, but nobody may be left waiting on this batch
+      log.error("Could not save {} queued jokes", batch.size(), ex);
+      batch.forEach(failed -> failed.saved().completeExceptionally(ex));
+    }
+  }
+
+  private void commit(List<Submission> batch) {
+    try {
+      var saved = jokesService.saveJokes(batch.stream().map(Submission::joke).toList());
+      for (int i = 0; i < batch.size(); i++) {
+        var submission = batch.get(i);
+        // a repost comes back as the joke it repeats rather than as itself
+        if (saved.get(i) == submission.joke()) {
+          submission.saved().complete(saved.get(i));
+        } else {
+          submission.saved().completeExceptionally(new DuplicateJokeException(saved.get(i)));
+        }
+      }
+    } catch (RuntimeException ex) {
+      log.debug("Group commit of {} jokes failed, saving them one by one", batch.size(), ex);
+      saveEach(batch);
+    }
+  }
+
+  // one bad joke must not fail everyone else's request
+  private void saveEach(List<Submission> batch) {
+    for (var submission : batch) {
+      try {
+        // fresh entities, the rolled back ones already hold a sequence id
+        var joke = submission.joke();
+        submission.saved().complete(jokesService.saveJoke(new Joke(joke.getContent(), joke.getAuthorId())));
+      } catch (RuntimeException ex) {
+        submission.saved().completeExceptionally(ex);
+      }
+    }
+  }
+
+  @Override
+  public void start() {
+    running = true;
+    writer = Thread.ofPlatform().name("joke-ingestion").start(this::drain);
+  }
+
+  /**
+   * Stops taking submissions and returns once everything already queued has
+   * been committed.
+   */
+  @Override
+  public void stop() {
+    running = false;
+    LockSupport.unpark(writer);
+    try {
+      writer.join();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // start before and stop after the web server, so accepted requests get written
+  @Override
+  public int getPhase() {
+    return SmartLifecycle.DEFAULT_PHASE - 4096;
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  private record Submission(Joke joke, CompletableFuture<Joke> saved) {
+  }
+}
@@ -0,0 +1,179 @@
+package com.denisjulio.jokes.api.jokes;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+
+/**
+ * Protocol Buffers representation of jokes, as described by
+ * {@code src/main/proto/jokes.proto}. The handful of messages is encoded
+ * straight from {@link Joke}, {@link JokeView} and
+ * {@link JokeSubmissionData}, so no generated classes or copies are needed.
+ * Clients can still generate theirs from the schema.
+ */
+public class JokeProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+  public static final MediaType PROTOBUF = new MediaType("application", "x-protobuf");
+
+  private static final int JOKE_ID = 1;
+  private static final int JOKE_CONTENT = 2;
+  private static final int JOKE_AUTHOR_ID = 3;
+  private static final int SUBMISSION_CONTENT = 1;
+  // field number of the repeated field in JokeList and JokeSubmissionList
+  private static final int LIST_ITEMS = 1;
+
+  public JokeProtobufHttpMessageConverter() {
+    super(PROTOBUF);
+  }
+
+  @Override
+  protected boolean supports(Class<?> clazz) {
+    return isJoke(clazz) || JokeSubmissionData.class == clazz;
+  }
+
+  @Override
+  public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+    var resolved = ResolvableType.forType(type);
+    return canRead(mediaType) && (JokeSubmissionData.class == resolved.toClass()
+        || isListOf(resolved, JokeSubmissionData.class));
+  }
+
+  @Override
+  public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+    var resolved = type != null ? ResolvableType.forType(type) : ResolvableType.forClass(clazz);
+    // handlers declared to return Object still hand over a joke
+    if (Object.class == resolved.toClass() && clazz != null) {
+      resolved = ResolvableType.forClass(clazz);
+    }
+    return canWrite(mediaType) && (isJoke(resolved.toClass())
+        || isListOf(resolved, Joke.class) || isListOf(resolved, JokeView.class));
+  }
+
+  @Override
+  protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+    var output = CodedOutputStream.newInstance(outputMessage.getBody());
+    if (body instanceof Collection<?> jokes) {
+      for (var joke : jokes) {
+        var fields = JokeFields.of(joke);
+        output.writeTag(LIST_ITEMS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        output.writeUInt32NoTag(fields.size());
+        fields.writeTo(output);
+      }
+    } else {
+      JokeFields.of(body).writeTo(output);
+    }
+    output.flush();
+  }
+
+  @Override
+  public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+    var input = CodedInputStream.newInstance(inputMessage.getBody());
+    try {
+      if (JokeSubmissionData.class != ResolvableType.forType(type).toClass()) {
+        return readSubmissions(input, inputMessage);
+      }
+      return readSubmission(input, inputMessage);
+    } catch (InvalidProtocolBufferException ex) {
+      throw new HttpMessageNotReadableException("Malformed protobuf body: " + ex.getMessage(), ex, inputMessage);
+    }
+  }
+
+  @Override
+  protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+    return read(clazz, null, inputMessage);
+  }
+
+  private static List<JokeSubmissionData> readSubmissions(CodedInputStream input, HttpInputMessage inputMessage)
+      throws IOException {
+    var submissions = new ArrayList<JokeSubmissionData>();
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      if (tag != WireFormat.makeTag(LIST_ITEMS, WireFormat.WIRETYPE_LENGTH_DELIMITED)) {
+        input.skipField(tag);
+        continue;
+      }
+      var limit = input.pushLimit(input.readRawVarint32());
+      submissions.add(readSubmission(input, inputMessage));
+      input.popLimit(limit);
+    }
+    return submissions;
+  }
+
+  private static JokeSubmissionData readSubmission(CodedInputStream input, HttpInputMessage inputMessage)
+      throws IOException {
+    String content = null;
+    int tag;
+    while ((tag = input.readTag()) != 0) {
+      if (tag == WireFormat.makeTag(SUBMISSION_CONTENT, WireFormat.WIRETYPE_LENGTH_DELIMITED)) {
+        content = input.readStringRequireUtf8();
+      } else {
+        input.skipField(tag);
+      }
+    }
+    // proto3 has no required fields, an empty string is as good as missing
+    if (content == null || content.isEmpty()) {
+      throw new HttpMessageNotReadableException("A joke submission needs content", inputMessage);
+    }
+    return new JokeSubmissionData(content);
+  }
+
+  private static boolean isJoke(Class<?> clazz) {
+    return Joke.class == clazz || JokeView.class == clazz;
+  }
+
+  private static boolean isListOf(ResolvableType type, Class<?> elementType) {
+    return Collection.class.isAssignableFrom(type.toClass())
+        && elementType == type.asCollection().resolveGeneric(0);
+  }
+
+  private record JokeFields(Long id, String content, String authorId) {
+
+    static JokeFields of(Object joke) {
+      if (joke instanceof JokeView view) {
+        return new JokeFields(view.id(), view.content(), view.authorId());
+      }
+      var entity = (Joke) joke;
+      return new JokeFields(entity.getId(), entity.getContent(), entity.getAuthorId());
+    }
+
+    int size() {
+      var size = 0;
+      if (id != null) {
+        size += CodedOutputStream.computeInt64Size(JOKE_ID, id);
+      }
+      if (content != null) {
+        size += CodedOutputStream.computeStringSize(JOKE_CONTENT, content);
+      }
+      if (authorId != null) {
+        size += CodedOutputStream.computeStringSize(JOKE_AUTHOR_ID, authorId);
+      }
+      return size;
+    }
+
+    void writeTo(CodedOutputStream output) throws IOException {
+      if (id != null) {
+        output.writeInt64(JOKE_ID, id);
+      }
+      if (content != null) {
+        output.writeString(JOKE_CONTENT, content);
+      }
+      if (authorId != null) {
+        output.writeString(JOKE_AUTHOR_ID, authorId);
+      }
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package com.denisjulio.jokes.api.jokes;
+
+/**
+ * Published by {@link JokesService} whenever a joke is persisted, and by
+ * {@link JokeChangeChannel} with {@code remote} set when another node
+ * persisted one.
+ */
+public record JokeSavedEvent(Joke joke, boolean remote) {
+
+  public JokeSavedEvent(Joke joke) {
+    this(joke, false);
+  }
+}
@@ -0,0 +1,381 @@
+package com.denisjulio.jokes.api.jokes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * In-process inverted index over joke content, ranked with BM25.
+ * <p>
+ * Terms are interned into a dictionary and every term keeps a posting list of
+ * joke id to term frequency. Each joke remembers its term ids so a delete,
+ * which only carries the id, can unlink it from its posting lists. Ids,
+ * frequencies and scores stay unboxed throughout. Built
+ * before the web server starts accepting requests and kept current from
+ * committed save and delete events. Rebuilt when other nodes' changes may
+ * have been missed.
+ */
+@Component
+public class JokeSearchIndex implements SmartInitializingSingleton {
+
+  private static final double K1 = 1.2;
+  private static final double B = 0.75;
+  // terms in more than this share of the jokes are left out of the ranking
+  private static final double MAX_TERM_SHARE = 0.5;
+
+  private final JokeStore jokeStore;
+  private final TransactionTemplate readOnlyTx;
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private Index current = new Index();
+  // changes made while a rebuild runs, replayed onto the rebuilt index, null otherwise
+  private List<Change> changedDuringRebuild;
+
+  public JokeSearchIndex(JokeStore jokeStore, PlatformTransactionManager transactionManager) {
+    this.jokeStore = jokeStore;
+    this.readOnlyTx = new TransactionTemplate(transactionManager);
+    this.readOnlyTx.setReadOnly(true);
+  }
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    rebuild();
+  }
+
+  @EventListener
+  void onJokesInvalidated(JokesInvalidatedEvent event) {
+    rebuild();
+  }
+
+  /**
+   * Builds a new index aside, so searches keep being served meanwhile, and
+   * swaps it in. Adding and removing are idempotent, so replaying changes the
+   * build already saw is harmless.
+   */
+  private synchronized void rebuild() {
+    lock.writeLock().lock();
+    try {
+      changedDuringRebuild = new ArrayList<>();
+    } finally {
+      lock.writeLock().unlock();
+    }
+    var rebuilt = new Index();
+    var built = false;
+    try {
+      PrimaryReads.run(() -> readOnlyTx.executeWithoutResult(status -> {
+        try (var jokes = jokeStore.streamAllViews()) {
+          jokes.forEach(joke -> rebuilt.add(joke.id(), joke.content()));
+        }
+      }));
+      built = true;
+    } finally {
+      lock.writeLock().lock();
+      try {
+        // a failed rebuild keeps the index it would have replaced
+        if (built) {
+          changedDuringRebuild.forEach(change -> change.applyTo(rebuilt));
+          current = rebuilt;
+        }
+        changedDuringRebuild = null;
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+  }
+
+  /**
+   * Returns the ids of the best {@code limit} matches for {@code query},
+   * highest score first. Any query term may match.
+   */
+  public List<Long> search(String query, int limit) {
+    lock.readLock().lock();
+    try {
+      return current.search(query, limit);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public void add(long jokeId, String content) {
+    apply(new Change(jokeId, content));
+  }
+
+  public void remove(long jokeId) {
+    apply(new Change(jokeId, null));
+  }
+
+  private void apply(Change change) {
+    lock.writeLock().lock();
+    try {
+      if (changedDuringRebuild != null) {
+        changedDuringRebuild.add(change);
+      }
+      change.applyTo(current);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  void onJokeSaved(JokeSavedEvent event) {
+    add(event.joke().getId(), event.joke().getContent());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  void onJokeDeleted(JokeDeletedEvent event) {
+    remove(event.jokeId());
+  }
+
+  /**
+   * Lower-cases and splits on anything that isn't a letter or a digit.
+   */
+  static List<String> tokenize(String text) {
+    var tokens = new ArrayList<String>();
+    var lower = text.toLowerCase(Locale.ROOT);
+    var start = -1;
+    for (int i = 0; i <= lower.length(); i++) {
+      var inToken = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+      if (inToken && start < 0) {
+        start = i;
+      } else if (!inToken && start >= 0) {
+        tokens.add(lower.substring(start, i));
+        start = -1;
+      }
+    }
+    return tokens;
+  }
+
+  // a save carries the content, a delete only the id
+  private record Change(long jokeId, String content) {
+
+    void applyTo(Index index) {
+      if (content != null) {
+        index.add(jokeId, content);
+      } else {
+        index.remove(jokeId);
+      }
+    }
+  }
+
+  private static final class Index {
+
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final List<LongIntHashMap> postings = new ArrayList<>();
+    // per joke state lives in arrays, at a slot that is reused once the joke is gone
+    private final LongIntHashMap slots = new LongIntHashMap(1024);
+    private int[][] slotTerms = new int[1024][];
+    private int[] slotLengths = new int[1024];
+    private int slotCount;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private long totalLength;
+
+    List<Long> search(String query, int limit) {
+      var jokeCount = slots.size();
+      if (jokeCount == 0 || limit < 1) {
+        return List.of();
+      }
+      var averageLength = (double) totalLength / jokeCount;
+      var matched = postingsFor(query, jokeCount);
+      var candidates = 0L;
+      for (var posting : matched) {
+        candidates += posting.size();
+      }
+      var scores = new Scores((int) Math.min(candidates, jokeCount));
+      for (var posting : matched) {
+        var idf = Math.log(1 + (jokeCount - posting.size() + 0.5) / (posting.size() + 0.5));
+        posting.forEach((jokeId, frequency) -> {
+          var norm = K1 * (1 - B + B * slotLengths[slots.get(jokeId)] / averageLength);
+          scores.add(jokeId, idf * frequency * (K1 + 1) / (frequency + norm));
+        });
+      }
+      return scores.top(limit);
+    }
+
+    /**
+     * Posting lists of the distinct query terms, leaving out terms found in
+     * more than {@link #MAX_TERM_SHARE} of the jokes. They barely move the
+     * ranking but would have every joke scored. When all terms are that
+     * common only the rarest one is kept.
+     */
+    private List<LongIntHashMap> postingsFor(String query, int jokeCount) {
+      var matched = new ArrayList<LongIntHashMap>();
+      LongIntHashMap rarest = null;
+      for (var term : new LinkedHashSet<>(tokenize(query))) {
+        var termId = termIds.get(term);
+        if (termId == null || postings.get(termId).size() == 0) {
+          continue;
+        }
+        var posting = postings.get(termId);
+        if (posting.size() <= MAX_TERM_SHARE * jokeCount) {
+          matched.add(posting);
+        } else if (rarest == null || posting.size() < rarest.size()) {
+          rarest = posting;
+        }
+      }
+      if (matched.isEmpty() && rarest != null) {
+        matched.add(rarest);
+      }
+      return matched;
+    }
+
+    void add(long jokeId, String content) {
+      var tokens = tokenize(content);
+      var frequencies = new HashMap<String, Integer>();
+      tokens.forEach(token -> frequencies.merge(token, 1, Integer::sum));
+
+      remove(jokeId);
+      var ids = new int[frequencies.size()];
+      var i = 0;
+      for (var entry : frequencies.entrySet()) {
+        var termId = termIds.computeIfAbsent(entry.getKey(), term -> {
+          postings.add(new LongIntHashMap(4));
+          return postings.size() - 1;
+        });
+        postings.get(termId).put(jokeId, entry.getValue());
+        ids[i++] = termId;
+      }
+      var slot = freeCount > 0 ? freeSlots[--freeCount] : nextSlot();
+      slots.put(jokeId, slot);
+      slotTerms[slot] = ids;
+      slotLengths[slot] = tokens.size();
+      totalLength += tokens.size();
+    }
+
+    void remove(long jokeId) {
+      var slot = slots.remove(jokeId);
+      if (slot == LongIntHashMap.MISSING) {
+        return;
+      }
+      for (var termId : slotTerms[slot]) {
+        // emptied posting lists stay in the dictionary, terms tend to come back
+        postings.get(termId).remove(jokeId);
+      }
+      totalLength -= slotLengths[slot];
+      slotTerms[slot] = null;
+      if (freeCount == freeSlots.length) {
+        freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+      }
+      freeSlots[freeCount++] = slot;
+    }
+
+    private int nextSlot() {
+      if (slotCount == slotTerms.length) {
+        slotTerms = Arrays.copyOf(slotTerms, slotCount * 2);
+        slotLengths = Arrays.copyOf(slotLengths, slotCount * 2);
+      }
+      return slotCount++;
+    }
+  }
+
+  /**
+   * Score accumulator of one search, joke ids and scores side by side in
+   * primitive arrays.
+   */
+  private static final class Scores {
+
+    private final LongIntHashMap positions;
+    private long[] jokeIds;
+    private double[] values;
+    private int size;
+
+    Scores(int expectedSize) {
+      positions = new LongIntHashMap(expectedSize);
+      jokeIds = new long[Math.max(expectedSize, 1)];
+      values = new double[jokeIds.length];
+    }
+
+    void add(long jokeId, double score) {
+      var position = positions.get(jokeId);
+      if (position == LongIntHashMap.MISSING) {
+        if (size == jokeIds.length) {
+          jokeIds = Arrays.copyOf(jokeIds, size * 2);
+          values = Arrays.copyOf(values, size * 2);
+        }
+        position = size++;
+        positions.put(jokeId, position);
+        jokeIds[position] = jokeId;
+      }
+      values[position] += score;
+    }
+
+    /**
+     * The {@code limit} best joke ids, highest score first and lowest id on
+     * ties, picked with a min-heap that never holds more than {@code limit}.
+     */
+    List<Long> top(int limit) {
+      var k = Math.min(limit, size);
+      // the worst of the best seen so far sits on top
+      var heap = new int[k];
+      var count = 0;
+      for (int i = 0; i < size; i++) {
+        if (count < k) {
+          heap[count] = i;
+          siftUp(heap, count++);
+        } else if (k > 0 && ranksBelow(heap[0], i)) {
+          heap[0] = i;
+          siftDown(heap, 0, k);
+        }
+      }
+      var best = new Long[count];
+      for (int n = count - 1; n >= 0; n--) {
+        best[n] = jokeIds[heap[0]];
+        heap[0] = heap[n];
+        siftDown(heap, 0, n);
+      }
+      return List.of(best);
+    }
+
+    private boolean ranksBelow(int a, int b) {
+      return values[a] < values[b] || values[a] == values[b] && jokeIds[a] > jokeIds[b];
+    }
+
+    private void siftUp(int[] heap, int i) {
+      while (i > 0) {
+        var parent = (i - 1) >>> 1;
+        if (!ranksBelow(heap[i], heap[parent])) {
+          return;
+        }
+        swap(heap, i, parent);
+        i = parent;
+      }
+    }
+
+    private void siftDown(int[] heap, int i, int size) {
+      while (true) {
+        var lowest = i;
+        var left = 2 * i + 1;
+        var right = left + 1;
+        if (left < size && ranksBelow(heap[left], heap[lowest])) {
+          lowest = left;
+        }
+        if (right < size && ranksBelow(heap[right], heap[lowest])) {
+          lowest = right;
+        }
+        if (lowest == i) {
+          return;
+        }
+        swap(heap, i, lowest);
+        i = lowest;
+      }
+    }
+
+    private static void swap(int[] heap, int i, int j) {
+      var held = heap[i];
+      heap[i] = heap[j];
+      heap[j] = held;
+    }
+  }
+}
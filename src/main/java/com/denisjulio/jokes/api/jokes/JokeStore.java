@@ -0,0 +1,66 @@
+package com.denisjulio.jokes.api.jokes;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Where jokes are persisted, picked with {@code jokes.storage.engine}: {@code jpa}
+ * for Postgres through {@link JokesRepository}, or {@code append-log} for the
+ * embedded {@link AppendLogJokeStore}.
+ * <p>
+ * Reads return {@link JokeView}s. Streams must be closed, and for the JPA
+ * store consumed inside a transaction. Saving content that is already stored
+ * fails with a {@code DataIntegrityViolationException}, like the unique index
+ * does.
+ */
+public interface JokeStore {
+
+  Optional<JokeView> findViewById(Long id);
+
+  List<JokeView> findViewsByIdIn(Collection<Long> ids);
+
+  /**
+   * Keyset page: at most {@code limit} jokes with an id past {@code id}, in
+   * id order.
+   */
+  List<JokeView> findViewsAfter(Long id, int limit);
+
+  /**
+   * Keyset page of one author's jokes.
+   */
+  List<JokeView> findViewsByAuthorAfter(String authorId, Long id, int limit);
+
+  Stream<JokeView> streamAllViews();
+
+  Stream<Long> streamIds();
+
+  Stream<AuthorJokesCount> streamAuthorCounts();
+
+  Stream<String> streamContentHashes();
+
+  long count();
+
+  boolean existsById(Long id);
+
+  Optional<Joke> findByContentHash(String contentHash);
+
+  List<Joke> findByContentHashIn(Collection<String> contentHashes);
+
+  /**
+   * Persists {@code joke}, assigning its id.
+   */
+  Joke save(Joke joke);
+
+  /**
+   * Persists all of {@code jokes} or none of them.
+   */
+  List<Joke> saveAll(List<Joke> jokes);
+
+  /**
+   * Deletes the joke only if it belongs to {@code authorId}. Returns the
+   * number of jokes removed.
+   */
+  int deleteByIdAndAuthorId(Long id, String authorId);
+}
@@ -0,0 +1,10 @@
+package com.denisjulio.jokes.api.jokes;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Read-only snapshot of a joke, selected column by column rather than loaded
+ * as an entity. Serializes like {@link Joke}.
+ */
+public record JokeView(Long id, String content, String authorId, @JsonIgnore Long version) {
+}
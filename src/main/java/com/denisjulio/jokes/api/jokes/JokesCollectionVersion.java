@@ -0,0 +1,8 @@
+package com.denisjulio.jokes.api.jokes;
+
+/**
+ * Cheap validator for the joke collection. Ids only ever grow, so any insert
+ * moves {@code maxId} and any delete moves {@code count}.
+ */
+public record JokesCollectionVersion(Long maxId, Long count) {
+}
@@ -1,56 +1,227 @@
 package com.denisjulio.jokes.api.jokes;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 
 @RestController()
 @RequestMapping("/jokes")
+@Validated
 public class JokesController {
 
+  static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+  static final int MAX_BATCH_SIZE = 1000;
+
+  private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
   private final JokesService jokesService;
+  private final ObjectMapper objectMapper;
+  private final JokeFeed jokeFeed;
+  private final JokeIngestionQueue ingestionQueue;
+  private final JokesSnapshot jokesSnapshot;
 
-  public JokesController(JokesService jokesService) {
+  public JokesController(JokesService jokesService, ObjectMapper objectMapper, JokeFeed jokeFeed,
+      ObjectProvider<JokeIngestionQueue> ingestionQueue, ObjectProvider<JokesSnapshot> jokesSnapshot) {
     this.jokesService = jokesService;
+    this.objectMapper = objectMapper;
+    this.jokeFeed = jokeFeed;
+    // only there when jokes.ingestion.mode is group-commit
+    this.ingestionQueue = ingestionQueue.getIfAvailable();
+    // only there when jokes.snapshot.enabled is true
+    this.jokesSnapshot = jokesSnapshot.getIfAvailable();
+  }
+
+  /**
+   * The first page, for clients asking for neither a cursor nor a limit, is
+   * served from the precomputed snapshot when there is a fresh one, gzipped
+   * if the client accepts it.
+   */
+  @GetMapping(params = {"!author", "!after", "!limit"}, produces = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> getFirstJokes(WebRequest request) {
+    var snapshot = jokesSnapshot == null ? null : jokesSnapshot.current().orElse(null);
+    if (snapshot == null) {
+      return getJokes(null, null, null, request);
+    }
+    var gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+    var etag = gzip ? JokeETags.forEncoding(snapshot.etag(), "gzip") : snapshot.etag();
+    if (request.checkNotModified(etag)) {
+      return null;
+    }
+    var response = ResponseEntity.ok()
+        .eTag(etag)
+        .varyBy(HttpHeaders.ACCEPT_ENCODING)
+        .contentType(MediaType.APPLICATION_JSON);
+    snapshot.nextCursor().ifPresent(cursor -> addNextPageHeaders(response, cursor));
+    if (gzip) {
+      response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+      return response.body(snapshot.gzip());
+    }
+    return response.body(snapshot.json());
   }
 
   @GetMapping
-  public ResponseEntity<List<Joke>> getJokes() {
-    var jokes = jokesService.getJokes();
-    return ResponseEntity.ok(jokes);
+  public ResponseEntity<List<JokeView>> getJokes(
+      @RequestParam(value = "author", required = false) String author,
+      @RequestParam(value = "after", required = false) String after,
+      @RequestParam(value = "limit", required = false) Integer limit,
+      WebRequest request) {
+    // the page may come from a replica, only its own rows can validate it
+    var page = jokesService.getJokes(author, after, limit);
+    var etag = JokeETags.forPage(page.jokes(), page.nextCursor());
+    if (request.checkNotModified(etag)) {
+      return null;
+    }
+    var response = ResponseEntity.ok().eTag(etag);
+    page.nextCursor().ifPresent(cursor -> addNextPageHeaders(response, cursor));
+    return response.body(page.jokes());
+  }
+
+  /**
+   * Writes the whole catalogue as newline delimited JSON, one joke per line,
+   * sending each buffer as soon as it fills so heap use stays flat whatever
+   * the table size.
+   */
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportJokes() {
+    StreamingResponseBody body = out -> {
+      // the stream spans many values, so Jackson must neither close nor flush it per joke
+      var writer = objectMapper.writer()
+          .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+          .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+      var buffered = new BufferedOutputStream(out, EXPORT_BUFFER_SIZE);
+      jokesService.exportJokes(joke -> {
+        try {
+          writer.writeValue(buffered, joke);
+          buffered.write('\n');
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        }
+      });
+      buffered.flush();
+    };
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .body(body);
+  }
+
+  /**
+   * Live feed of created and deleted jokes, so clients can stop polling
+   * {@code GET /jokes}. Reconnecting clients send back the last event id they
+   * saw.
+   */
+  @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamJokes(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+    return jokeFeed.subscribe(lastEventId);
   }
 
   @PostMapping
   public ResponseEntity<Joke> postNewJoke(@RequestBody JokeSubmissionData jokeData, @AuthenticationPrincipal Jwt jwt) {
     var newJoke = new Joke(jokeData.getContent(), jwt.getSubject());
+    var saved = ingestionQueue == null ? jokesService.saveJoke(newJoke) : ingestionQueue.save(newJoke);
     return ResponseEntity
         .status(201)
-        .body(jokesService.saveJoke(newJoke));
+        .body(saved);
+  }
+
+  @PostMapping("/batch")
+  public ResponseEntity<List<Joke>> postNewJokes(
+      @RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE) List<@Valid @NotNull JokeSubmissionData> jokesData,
+      @AuthenticationPrincipal Jwt jwt) {
+    var newJokes = jokesData.stream()
+        .map(jokeData -> new Joke(jokeData.getContent(), jwt.getSubject()))
+        .toList();
+    return ResponseEntity
+        .status(201)
+        .body(jokesService.saveJokes(newJokes));
+  }
+
+  @GetMapping("/search")
+  public ResponseEntity<List<JokeView>> searchJokes(
+      @RequestParam("q") @NotBlank String query,
+      @RequestParam(value = "limit", required = false) Integer limit) {
+    return ResponseEntity.ok(jokesService.searchJokes(query, limit));
+  }
+
+  @GetMapping("/random")
+  public ResponseEntity<JokeView> getRandomJoke() {
+    return jokesService.getRandomJoke()
+        .map(joke -> ResponseEntity.ok()
+            .cacheControl(CacheControl.noStore())
+            .body(joke))
+        .orElseGet(() -> ResponseEntity.notFound().build());
   }
 
   @GetMapping("/{jokeId}")
-  public ResponseEntity<Joke> getJokeById(@PathVariable(value = "jokeId") Long jokeId) {
-    return jokesService.getJokeById(jokeId)
-        .map(ResponseEntity::ok)
+  public ResponseEntity<JokeView> getJokeById(@PathVariable(value = "jokeId") Long jokeId, WebRequest request) {
+    var joke = jokesService.getJokeById(jokeId)
         .orElseThrow(() -> new JokeNotFoundException(jokeId));
+    var etag = JokeETags.forJoke(joke.id(), joke.version());
+    if (request.checkNotModified(etag)) {
+      return null;
+    }
+    return ResponseEntity.ok().eTag(etag).body(joke);
   }
 
   @DeleteMapping("/{jokeId}")
-  public ResponseEntity<Object> deleteJokeById(@PathVariable("jokeId") Long jokeId) {
-    return jokesService.getJokeById(jokeId)
-        .map(joke -> {
-          jokesService.deleteJoke(joke);
-          return ResponseEntity.noContent().build();
-        })
-        .orElseThrow(() -> new JokeNotFoundException(jokeId));
+  public ResponseEntity<Object> deleteJokeById(@PathVariable("jokeId") Long jokeId, @AuthenticationPrincipal Jwt jwt) {
+    jokesService.deleteJoke(jokeId, jwt.getSubject());
+    return ResponseEntity.noContent().build();
+  }
+
+  private static void addNextPageHeaders(ResponseEntity.BodyBuilder response, String cursor) {
+    var next = ServletUriComponentsBuilder.fromCurrentRequest()
+        .replaceQueryParam("after", cursor)
+        .build()
+        .toUriString();
+    response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+    response.header(NEXT_CURSOR_HEADER, cursor);
+  }
+
+  private static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (var coding : acceptEncoding.split(",")) {
+      var parts = coding.trim().split(";");
+      var name = parts[0].trim();
+      var refused = parts.length > 1 && parts[1].trim().matches("q=0(\\.0*)?");
+      if ((name.equalsIgnoreCase("gzip") || name.equals("*")) && !refused) {
+        return true;
+      }
+    }
+    return false;
   }
 }
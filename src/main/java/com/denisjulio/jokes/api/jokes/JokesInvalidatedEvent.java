@@ -0,0 +1,8 @@
+package com.denisjulio.jokes.api.jokes;
+
+/**
+ * Published by {@link JokeChangeChannel} when changes made on other nodes may
+ * have been missed, so everything cached locally must be dropped.
+ */
+public record JokesInvalidatedEvent() {
+}
@@ -0,0 +1,11 @@
+package com.denisjulio.jokes.api.jokes;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A keyset page of jokes, ordered by id, plus the cursor to the next page
+ * when there is one.
+ */
+public record JokesPage(List<JokeView> jokes, Optional<String> nextCursor) {
+}
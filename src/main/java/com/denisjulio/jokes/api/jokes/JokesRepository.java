@@ -1,6 +1,85 @@
 package com.denisjulio.jokes.api.jokes;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.QueryHint;
 
+/**
+ * Writes go through the {@link Joke} entity. Reads select {@link JokeView}s
+ * with constructor expressions in read-only transactions, so Hibernate keeps
+ * neither managed instances nor dirty checking snapshots for them.
+ */
 public interface JokesRepository extends JpaRepository<Joke, Long> {
-}
\ No newline at end of file
+
+  String VIEW = "select new com.denisjulio.jokes.api.jokes.JokeView(j.id, j.content, j.authorId, j.version)"
+      + " from Joke j";
+
+  @Transactional(readOnly = true)
+  @Query(VIEW + " where j.id = :id")
+  Optional<JokeView> findViewById(@Param("id") Long id);
+
+  @Transactional(readOnly = true)
+  @Query(VIEW + " where j.id in :ids")
+  List<JokeView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+  /**
+   * Keyset page: seeks the primary key index past {@code id} instead of
+   * scanning and discarding rows like an OFFSET would.
+   */
+  @Transactional(readOnly = true)
+  @Query(VIEW + " where j.id > :id order by j.id")
+  List<JokeView> findViewsAfter(@Param("id") Long id, Pageable pageable);
+
+  /**
+   * Keyset page of one author's jokes, over the {@code (author-id, id)}
+   * index.
+   */
+  @Transactional(readOnly = true)
+  List<JokeView> findByAuthorIdAndIdGreaterThanOrderByIdAsc(String authorId, Long id, Pageable pageable);
+
+  @Query("select new com.denisjulio.jokes.api.jokes.AuthorJokesCount(j.authorId, count(j)) from Joke j"
+      + " group by j.authorId")
+  Stream<AuthorJokesCount> streamAuthorCounts();
+
+  /**
+   * Deletes the joke only if it belongs to {@code authorId}, in a single
+   * statement. Returns the number of rows removed.
+   */
+  @Modifying
+  @Query("delete from Joke j where j.id = :id and j.authorId = :authorId")
+  int deleteByIdAndAuthorId(@Param("id") Long id, @Param("authorId") String authorId);
+
+  /**
+   * Streams every joke through a server side cursor, fetching rows in chunks.
+   * Must be consumed inside a transaction and closed afterwards.
+   */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+  @Query(VIEW + " order by j.id")
+  Stream<JokeView> streamAllViews();
+
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "5000"))
+  @Query("select j.id from Joke j")
+  Stream<Long> streamIds();
+
+  @Transactional(readOnly = true)
+  Optional<Joke> findByContentHash(String contentHash);
+
+  @Transactional(readOnly = true)
+  List<Joke> findByContentHashIn(Collection<String> contentHashes);
+
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "5000"))
+  @Query("select j.contentHash from Joke j where j.contentHash is not null")
+  Stream<String> streamContentHashes();
+}
@@ -1,34 +1,219 @@
 package com.denisjulio.jokes.api.jokes;
 
-import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class JokesService {
 
-  private final JokesRepository jokesRepository;
+  private static final int RANDOM_PICK_ATTEMPTS = 3;
 
-  public JokesService(JokesRepository jokesRepository) {
-    this.jokesRepository = jokesRepository;
+  private final JokeStore jokeStore;
+  private final JokeCache jokeCache;
+  private final JokeIdIndex jokeIdIndex;
+  private final JokeSearchIndex jokeSearchIndex;
+  private final AuthorJokeCounts authorJokeCounts;
+  private final JokeDuplicates jokeDuplicates;
+  private final ApplicationEventPublisher eventPublisher;
+  private final TransactionTemplate writeTx;
+  private final int defaultPageSize;
+  private final int maxPageSize;
+
+  public JokesService(JokeStore jokeStore, JokeCache jokeCache, JokeIdIndex jokeIdIndex,
+      JokeSearchIndex jokeSearchIndex, AuthorJokeCounts authorJokeCounts, JokeDuplicates jokeDuplicates,
+      ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager,
+      @Value("${jokes.pagination.default-limit:50}") int defaultPageSize,
+      @Value("${jokes.pagination.max-limit:500}") int maxPageSize) {
+    this.jokeStore = jokeStore;
+    this.jokeCache = jokeCache;
+    this.jokeIdIndex = jokeIdIndex;
+    this.jokeSearchIndex = jokeSearchIndex;
+    this.authorJokeCounts = authorJokeCounts;
+    this.jokeDuplicates = jokeDuplicates;
+    this.eventPublisher = eventPublisher;
+    this.writeTx = new TransactionTemplate(transactionManager);
+    this.defaultPageSize = defaultPageSize;
+    this.maxPageSize = maxPageSize;
+  }
+
+  /**
+   * Returns at most {@code limit} jokes with an id past the given cursor, by
+   * {@code authorId} only when it is given. The limit falls back to the
+   * default and is capped server side, so a single request can never pull
+   * the whole table.
+   */
+  public JokesPage getJokes(String authorId, String after, Integer limit) {
+    var pageSize = pageSize(limit);
+    var afterId = after == null ? Long.valueOf(0L) : JokeCursor.decode(after);
+    // one extra row tells us whether a next page exists without a COUNT
+    var jokes = authorId == null
+        ? jokeStore.findViewsAfter(afterId, pageSize + 1)
+        : jokeStore.findViewsByAuthorAfter(authorId, afterId, pageSize + 1);
+    if (jokes.size() <= pageSize) {
+      return new JokesPage(jokes, Optional.empty());
+    }
+    var page = jokes.subList(0, pageSize);
+    return new JokesPage(page, Optional.of(JokeCursor.encode(page.get(pageSize - 1).id())));
+  }
+
+  /**
+   * Ranks jokes against {@code query} in the search index and loads the
+   * matches in one query, keeping the index order.
+   */
+  public List<JokeView> searchJokes(String query, Integer limit) {
+    var jokeIds = jokeSearchIndex.search(query, pageSize(limit));
+    if (jokeIds.isEmpty()) {
+      return List.of();
+    }
+    var jokesById = jokeStore.findViewsByIdIn(jokeIds).stream()
+        .collect(Collectors.toMap(JokeView::id, Function.identity()));
+    return jokeIds.stream()
+        .map(jokesById::get)
+        .filter(Objects::nonNull)
+        .toList();
+  }
+
+  public AuthorJokesCount countJokesByAuthor(String authorId) {
+    return authorJokeCounts.get(authorId);
   }
 
-  public List<Joke> getJokes() {
-    return jokesRepository.findAll();
+  /**
+   * Hands every joke to {@code sink} in id order while holding only the
+   * current fetch chunk in memory. Views aren't managed, so the persistence
+   * context stays empty however large the table.
+   */
+  @Transactional(readOnly = true)
+  public void exportJokes(Consumer<JokeView> sink) {
+    try (var jokes = jokeStore.streamAllViews()) {
+      jokes.forEach(sink);
+    }
   }
 
-  public Optional<Joke> getJokeById(Long jokeId) {
-    return jokesRepository.findById(jokeId);
+  public Optional<JokeView> getJokeById(Long jokeId) {
+    // a lagging replica could put a deleted joke back, or cache a new one as missing
+    return jokeCache.get(jokeId, id -> PrimaryReads.call(() -> jokeStore.findViewById(id)));
   }
 
+  /**
+   * Picks a joke uniformly at random from the id index, then loads it through
+   * the cache. An id deleted on another node can linger in the index, so a
+   * miss drops it and tries again a few times.
+   */
+  public Optional<JokeView> getRandomJoke() {
+    for (int attempt = 0; attempt < RANDOM_PICK_ATTEMPTS; attempt++) {
+      var jokeId = jokeIdIndex.random();
+      if (jokeId.isEmpty()) {
+        return Optional.empty();
+      }
+      var joke = getJokeById(jokeId.getAsLong());
+      if (joke.isPresent()) {
+        return joke;
+      }
+      jokeIdIndex.remove(jokeId.getAsLong());
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Saves {@code joke} unless the same content is already saved, in which case
+   * {@link DuplicateJokeException} carries the existing joke and nothing is
+   * inserted.
+   */
   public Joke saveJoke(Joke joke) {
-    return jokesRepository.save(joke);
+    jokeDuplicates.find(joke).ifPresent(existing -> {
+      throw new DuplicateJokeException(existing);
+    });
+    Joke saved;
+    try {
+      saved = jokeStore.save(joke);
+    } catch (DataIntegrityViolationException ex) {
+      // the same content committed concurrently, after the filter was checked
+      var existing = PrimaryReads.call(() -> jokeStore.findByContentHash(joke.getContentHash()))
+          .orElseThrow(() -> ex);
+      jokeDuplicates.recordRaces(1);
+      throw new DuplicateJokeException(existing);
+    }
+    eventPublisher.publishEvent(new JokeSavedEvent(saved));
+    return saved;
+  }
+
+  /**
+   * Persists all jokes in one transaction. Ids come from the pooled sequence
+   * and the inserts go out as JDBC batches, so the statement count grows with
+   * the batch size setting rather than with the number of jokes.
+   * <p>
+   * Reposts of saved jokes, or of one earlier in the list, aren't inserted:
+   * the returned list holds the joke they repeat in their place. That holds
+   * for reposts committed concurrently too: the unique index rejects the
+   * batch and it is saved again without them.
+   */
+  public List<Joke> saveJokes(List<Joke> jokes) {
+    var saved = jokeDuplicates.findAll(jokes);
+    try {
+      return writeTx.execute(status -> saveNew(jokes, saved));
+    } catch (DataIntegrityViolationException ex) {
+      // some content committed concurrently, after the filter was checked
+      var raced = jokeDuplicates.findAllSaved(jokes);
+      var races = raced.keySet().stream().filter(hash -> !saved.containsKey(hash)).count();
+      if (races == 0) {
+        throw ex;
+      }
+      jokeDuplicates.recordRaces(races);
+      // the rolled back inserts left their sequence ids behind
+      jokes.forEach(joke -> joke.assign(null, null));
+      return writeTx.execute(status -> saveNew(jokes, raced));
+    }
+  }
+
+  private List<Joke> saveNew(List<Joke> jokes, Map<String, Joke> saved) {
+    var byHash = new HashMap<>(saved);
+    var result = new ArrayList<Joke>(jokes.size());
+    var fresh = new ArrayList<Joke>(jokes.size());
+    for (var joke : jokes) {
+      var known = byHash.putIfAbsent(joke.getContentHash(), joke);
+      if (known == null) {
+        fresh.add(joke);
+      }
+      result.add(known == null ? joke : known);
+    }
+    // new entities are persisted as is, so result already holds the saved instances
+    jokeStore.saveAll(fresh).forEach(joke -> eventPublisher.publishEvent(new JokeSavedEvent(joke)));
+    return result;
+  }
+
+  /**
+   * Deletes the joke with a single conditional statement. Only when nothing
+   * was deleted does it probe for the row, to tell a missing joke apart from
+   * someone else's.
+   */
+  @Transactional
+  public void deleteJoke(Long jokeId, String authorId) {
+    if (jokeStore.deleteByIdAndAuthorId(jokeId, authorId) == 0) {
+      if (jokeStore.existsById(jokeId)) {
+        throw new AccessDeniedException("Joke " + jokeId + " belongs to another author");
+      }
+      throw new JokeNotFoundException(jokeId);
+    }
+    eventPublisher.publishEvent(new JokeDeletedEvent(jokeId, authorId));
   }
 
-  @PreAuthorize("#joke.authorId == principal.claims['sub']")
-  public void deleteJoke(Joke joke) {
-    jokesRepository.delete(joke);
+  private int pageSize(Integer limit) {
+    return limit == null || limit < 1 ? defaultPageSize : Math.min(limit, maxPageSize);
   }
 }
@@ -0,0 +1,160 @@
+package com.denisjulio.jokes.api.jokes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The first page of {@code GET /jokes}, as served to clients that send no
+ * cursor and no limit, kept serialized and gzipped in memory so those
+ * requests cost neither a query nor any encoding work.
+ * <p>
+ * Committed changes schedule a rebuild on a background thread, debounced so
+ * a burst of writes costs one rebuild. Readers keep getting the previous
+ * snapshot meanwhile and never wait, but only for up to
+ * {@code max-staleness} after the first change it misses. Past that it is
+ * withheld and requests take the regular path until the rebuild lands.
+ */
+@Component
+@ConditionalOnProperty(name = "jokes.snapshot.enabled", havingValue = "true")
+public class JokesSnapshot implements SmartInitializingSingleton, DisposableBean {
+
+  private static final Logger log = LoggerFactory.getLogger(JokesSnapshot.class);
+
+  private static final long RETRY_DELAY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final JokesService jokesService;
+  private final ObjectMapper objectMapper;
+  private final long debounceNanos;
+  private final long maxStalenessNanos;
+  private final ScheduledExecutorService rebuilder = Executors.newSingleThreadScheduledExecutor(
+      runnable -> Thread.ofPlatform().name("jokes-snapshot").daemon().unstarted(runnable));
+
+  private volatile Snapshot current;
+  // when the first change the current snapshot misses was committed, 0 if none
+  private volatile long staleSince;
+  private ScheduledFuture<?> scheduledRebuild;
+
+  public JokesSnapshot(JokesService jokesService, ObjectMapper objectMapper,
+      @Value("${jokes.snapshot.debounce:100ms}") Duration debounce,
+      @Value("${jokes.snapshot.max-staleness:1s}") Duration maxStaleness) {
+    this.jokesService = jokesService;
+    this.objectMapper = objectMapper;
+    this.debounceNanos = debounce.toNanos();
+    this.maxStalenessNanos = maxStaleness.toNanos();
+  }
+
+  /**
+   * An encoded page of jokes with the validator and cursor it was served
+   * with.
+   */
+  public record Snapshot(byte[] json, byte[] gzip, String etag, Optional<String> nextCursor) {
+  }
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    rebuild();
+  }
+
+  /**
+   * Returns the snapshot unless none was built yet or it has been stale for
+   * too long.
+   */
+  public Optional<Snapshot> current() {
+    var since = staleSince;
+    if (since != 0L && System.nanoTime() - since > maxStalenessNanos) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(current);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  void onJokeSaved(JokeSavedEvent event) {
+    scheduleRebuild(0L);
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  void onJokeDeleted(JokeDeletedEvent event) {
+    scheduleRebuild(0L);
+  }
+
+  @EventListener
+  void onJokesInvalidated(JokesInvalidatedEvent event) {
+    scheduleRebuild(0L);
+  }
+
+  private synchronized void scheduleRebuild(long minDelayNanos) {
+    var now = System.nanoTime();
+    if (staleSince == 0L) {
+      staleSince = now;
+    }
+    if (scheduledRebuild != null) {
+      scheduledRebuild.cancel(false);
+    }
+    // every change pushes the rebuild back, but never past the staleness bound
+    var delay = Math.max(minDelayNanos, Math.min(debounceNanos, staleSince + maxStalenessNanos - now));
+    scheduledRebuild = rebuilder.schedule(this::rebuild, delay, TimeUnit.NANOSECONDS);
+  }
+
+  private void rebuild() {
+    long missedSince;
+    synchronized (this) {
+      // changes committed from here on need another rebuild
+      missedSince = staleSince;
+      staleSince = 0L;
+      scheduledRebuild = null;
+    }
+    try {
+      var page = PrimaryReads.call(() -> jokesService.getJokes(null, null, null));
+      var json = objectMapper.writeValueAsBytes(page.jokes());
+      // tagged like the page GET /jokes would build, so either answer validates the other
+      current = new Snapshot(json, gzip(json), JokeETags.forPage(page.jokes(), page.nextCursor()),
+          page.nextCursor());
+    } catch (IOException | RuntimeException ex) {
+      log.warn("Could not rebuild the jokes snapshot, retrying: {}", ex.getMessage());
+      synchronized (this) {
+        if (missedSince != 0L) {
+          staleSince = missedSince;
+        }
+      }
+      scheduleRebuild(RETRY_DELAY_NANOS);
+    }
+  }
+
+  private static byte[] gzip(byte[] content) throws IOException {
+    var out = new ByteArrayOutputStream(content.length / 4);
+    // built once and served many times, so the best ratio is worth it
+    try (var gzip = new GZIPOutputStream(out) {
+      {
+        def.setLevel(Deflater.BEST_COMPRESSION);
+      }
+    }) {
+      gzip.write(content);
+    }
+    return out.toByteArray();
+  }
+
+  @Override
+  public void destroy() {
+    rebuilder.shutdownNow();
+  }
+}
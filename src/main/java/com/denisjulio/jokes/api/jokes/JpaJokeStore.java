@@ -0,0 +1,99 @@
+package com.denisjulio.jokes.api.jokes;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+/**
+ * The default store, Postgres through {@link JokesRepository}.
+ */
+@Component
+@ConditionalOnProperty(name = "jokes.storage.engine", havingValue = "jpa", matchIfMissing = true)
+public class JpaJokeStore implements JokeStore {
+
+  private final JokesRepository jokesRepository;
+
+  public JpaJokeStore(JokesRepository jokesRepository) {
+    this.jokesRepository = jokesRepository;
+  }
+
+  @Override
+  public Optional<JokeView> findViewById(Long id) {
+    return jokesRepository.findViewById(id);
+  }
+
+  @Override
+  public List<JokeView> findViewsByIdIn(Collection<Long> ids) {
+    return jokesRepository.findViewsByIdIn(ids);
+  }
+
+  @Override
+  public List<JokeView> findViewsAfter(Long id, int limit) {
+    return jokesRepository.findViewsAfter(id, PageRequest.ofSize(limit));
+  }
+
+  @Override
+  public List<JokeView> findViewsByAuthorAfter(String authorId, Long id, int limit) {
+    return jokesRepository.findByAuthorIdAndIdGreaterThanOrderByIdAsc(authorId, id, PageRequest.ofSize(limit));
+  }
+
+  @Override
+  public Stream<JokeView> streamAllViews() {
+    return jokesRepository.streamAllViews();
+  }
+
+  @Override
+  public Stream<Long> streamIds() {
+    return jokesRepository.streamIds();
+  }
+
+  @Override
+  public Stream<AuthorJokesCount> streamAuthorCounts() {
+    return jokesRepository.streamAuthorCounts();
+  }
+
+  @Override
+  public Stream<String> streamContentHashes() {
+    return jokesRepository.streamContentHashes();
+  }
+
+  @Override
+  public long count() {
+    return jokesRepository.count();
+  }
+
+  @Override
+  public boolean existsById(Long id) {
+    return jokesRepository.existsById(id);
+  }
+
+  @Override
+  public Optional<Joke> findByContentHash(String contentHash) {
+    return jokesRepository.findByContentHash(contentHash);
+  }
+
+  @Override
+  public List<Joke> findByContentHashIn(Collection<String> contentHashes) {
+    return jokesRepository.findByContentHashIn(contentHashes);
+  }
+
+  @Override
+  public Joke save(Joke joke) {
+    return jokesRepository.save(joke);
+  }
+
+  @Override
+  public List<Joke> saveAll(List<Joke> jokes) {
+    return jokesRepository.saveAll(jokes);
+  }
+
+  @Override
+  public int deleteByIdAndAuthorId(Long id, String authorId) {
+    return jokesRepository.deleteByIdAndAuthorId(id, authorId);
+  }
+}
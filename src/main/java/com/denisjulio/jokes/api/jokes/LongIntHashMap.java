@@ -0,0 +1,139 @@
+package com.denisjulio.jokes.api.jokes;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing map from {@code long} keys to {@code int} values, with
+ * linear probing and backward shift deletion. Keeps joke ids unboxed, which
+ * is most of the memory a {@code HashMap<Long, Integer>} would spend.
+ * <p>
+ * Key {@code 0} is reserved as the empty marker, joke ids start at 1. Not
+ * thread safe.
+ */
+final class LongIntHashMap {
+
+  static final int MISSING = -1;
+
+  private long[] keys;
+  private int[] values;
+  private int mask;
+  private int size;
+
+  LongIntHashMap(int expectedSize) {
+    var capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1;
+    keys = new long[capacity];
+    values = new int[capacity];
+    mask = capacity - 1;
+  }
+
+  int size() {
+    return size;
+  }
+
+  int get(long key) {
+    for (int i = slot(key); keys[i] != 0; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        return values[i];
+      }
+    }
+    return MISSING;
+  }
+
+  /**
+   * Maps {@code key} to {@code value}, returning the previous value or
+   * {@link #MISSING}.
+   */
+  int put(long key, int value) {
+    if (key == 0) {
+      throw new IllegalArgumentException("Key 0 is reserved");
+    }
+    if ((size + 1) * 2 > keys.length) {
+      grow();
+    }
+    int i = slot(key);
+    for (; keys[i] != 0; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        var previous = values[i];
+        values[i] = value;
+        return previous;
+      }
+    }
+    keys[i] = key;
+    values[i] = value;
+    size++;
+    return MISSING;
+  }
+
+  /**
+   * Removes {@code key}, returning its value or {@link #MISSING}.
+   */
+  int remove(long key) {
+    for (int i = slot(key); keys[i] != 0; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        var previous = values[i];
+        shiftBack(i);
+        size--;
+        return previous;
+      }
+    }
+    return MISSING;
+  }
+
+  void clear() {
+    Arrays.fill(keys, 0L);
+    size = 0;
+  }
+
+  void forEach(Entry action) {
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != 0) {
+        action.accept(keys[i], values[i]);
+      }
+    }
+  }
+
+  @FunctionalInterface
+  interface Entry {
+    void accept(long key, int value);
+  }
+
+  /**
+   * Closes the hole left at {@code gap} by pulling back every following entry
+   * of the probe run whose home slot is not after the hole.
+   */
+  private void shiftBack(int gap) {
+    for (int i = (gap + 1) & mask; keys[i] != 0; i = (i + 1) & mask) {
+      var home = slot(keys[i]);
+      if (((i - home) & mask) >= ((i - gap) & mask)) {
+        keys[gap] = keys[i];
+        values[gap] = values[i];
+        gap = i;
+      }
+    }
+    keys[gap] = 0;
+  }
+
+  private void grow() {
+    var oldKeys = keys;
+    var oldValues = values;
+    keys = new long[oldKeys.length * 2];
+    values = new int[oldValues.length * 2];
+    mask = keys.length - 1;
+    size = 0;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != 0) {
+        put(oldKeys[i], oldValues[i]);
+      }
+    }
+  }
+
+  private int slot(long key) {
+    // murmur3 finalizer, sequence ids would otherwise cluster
+    key ^= key >>> 33;
+    key *= 0xff51afd7ed558ccdL;
+    key ^= key >>> 33;
+    key *= 0xc4ceb9fe1a85ec53L;
+    key ^= key >>> 33;
+    return (int) key & mask;
+  }
+}
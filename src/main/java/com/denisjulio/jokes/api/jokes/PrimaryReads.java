@@ -0,0 +1,40 @@
+package com.denisjulio.jokes.api.jokes;
+
+import java.util.function.Supplier;
+
+/**
+ * Marks reads that must see every committed write: cache loads, duplicate
+ * lookups and the loads that seed or rebuild in-memory state. With read
+ * replicas configured, read-only transactions started while this is set go
+ * to the primary instead of a replica that may lag behind.
+ */
+public final class PrimaryReads {
+
+  private static final ThreadLocal<Boolean> REQUESTED = new ThreadLocal<>();
+
+  private PrimaryReads() {
+  }
+
+  public static <T> T call(Supplier<T> read) {
+    var outer = REQUESTED.get();
+    REQUESTED.set(Boolean.TRUE);
+    try {
+      return read.get();
+    } finally {
+      if (outer == null) {
+        REQUESTED.remove();
+      }
+    }
+  }
+
+  public static void run(Runnable read) {
+    call(() -> {
+      read.run();
+      return null;
+    });
+  }
+
+  public static boolean requested() {
+    return REQUESTED.get() != null;
+  }
+}
@@ -0,0 +1,64 @@
+package com.denisjulio.jokes.api.metrics;
+
+/**
+ * Per-request tally of where time went, bound to the request thread by
+ * {@link ServerTimingFilter}. Recorders look it up through {@link #current()}
+ * and simply skip recording when no request is bound, e.g. for scheduled
+ * work or streamed responses finishing on another thread.
+ */
+public final class RequestTimings {
+
+  private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+
+  private final long startNanos = System.nanoTime();
+  private int sqlStatements;
+  private long sqlNanos;
+  private long jwtNanos;
+
+  RequestTimings() {}
+
+  public static RequestTimings current() {
+    return CURRENT.get();
+  }
+
+  static void bind(RequestTimings timings) {
+    CURRENT.set(timings);
+  }
+
+  static void unbind() {
+    CURRENT.remove();
+  }
+
+  public void recordSqlStatement(long nanos) {
+    sqlStatements++;
+    sqlNanos += nanos;
+  }
+
+  public void recordJwtDecode(long nanos) {
+    jwtNanos += nanos;
+  }
+
+  int sqlStatements() {
+    return sqlStatements;
+  }
+
+  long sqlNanos() {
+    return sqlNanos;
+  }
+
+  long jwtNanos() {
+    return jwtNanos;
+  }
+
+  long elapsedNanos() {
+    return System.nanoTime() - startNanos;
+  }
+
+  /**
+   * Renders the tally as a {@code Server-Timing} header value.
+   */
+  String toServerTiming() {
+    return "sql;dur=%.2f;desc=\"%d statements\", jwt;dur=%.2f, total;dur=%.2f".formatted(
+        sqlNanos / 1e6, sqlStatements, jwtNanos / 1e6, elapsedNanos() / 1e6);
+  }
+}
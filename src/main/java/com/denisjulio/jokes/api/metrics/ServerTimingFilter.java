@@ -0,0 +1,122 @@
+package com.denisjulio.jokes.api.metrics;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Binds a {@link RequestTimings} to each request, reports it back to the
+ * client as a {@code Server-Timing} header and records the SQL statement
+ * count and time per route, which is where N+1 and double query regressions
+ * show up.
+ * <p>
+ * Runs first so the bearer token check in the security chain is included.
+ * The header is added right before the response commits, which is the last
+ * moment headers can still be sent.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+  static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+  private final MeterRegistry meterRegistry;
+
+  public ServerTimingFilter(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    var timings = new RequestTimings();
+    var timedResponse = new ServerTimingResponse(response, timings);
+    RequestTimings.bind(timings);
+    try {
+      chain.doFilter(request, timedResponse);
+    } finally {
+      RequestTimings.unbind();
+      timedResponse.addServerTiming();
+      record(request, timings);
+    }
+  }
+
+  private void record(HttpServletRequest request, RequestTimings timings) {
+    var route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    var uri = route == null ? "UNKNOWN" : route.toString();
+    DistributionSummary.builder("jokes.http.sql.statements")
+        .description("SQL statements executed per request")
+        .tags("method", request.getMethod(), "uri", uri)
+        .register(meterRegistry)
+        .record(timings.sqlStatements());
+    Timer.builder("jokes.http.sql.time")
+        .description("Time spent executing SQL per request")
+        .tags("method", request.getMethod(), "uri", uri)
+        .register(meterRegistry)
+        .record(timings.sqlNanos(), TimeUnit.NANOSECONDS);
+  }
+
+  private static final class ServerTimingResponse extends HttpServletResponseWrapper {
+
+    private final RequestTimings timings;
+    private boolean added;
+
+    ServerTimingResponse(HttpServletResponse response, RequestTimings timings) {
+      super(response);
+      this.timings = timings;
+    }
+
+    void addServerTiming() {
+      if (!added && !isCommitted()) {
+        setHeader(SERVER_TIMING_HEADER, timings.toServerTiming());
+      }
+      added = true;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      addServerTiming();
+      return super.getOutputStream();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+      addServerTiming();
+      return super.getWriter();
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+      addServerTiming();
+      super.flushBuffer();
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+      addServerTiming();
+      super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+      addServerTiming();
+      super.sendError(sc);
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package com.denisjulio.jokes.api.metrics;
+
+import org.hibernate.engine.spi.SessionEventListener;
+
+/**
+ * Counts and times every JDBC statement and batch a Hibernate session
+ * executes, charging them to the current request. Registered per session
+ * through {@code hibernate.session.events.auto}.
+ */
+public class SqlStatementListener implements SessionEventListener {
+
+  private long statementStart;
+  private long batchStart;
+
+  @Override
+  public void jdbcExecuteStatementStart() {
+    statementStart = System.nanoTime();
+  }
+
+  @Override
+  public void jdbcExecuteStatementEnd() {
+    record(statementStart);
+  }
+
+  @Override
+  public void jdbcExecuteBatchStart() {
+    batchStart = System.nanoTime();
+  }
+
+  @Override
+  public void jdbcExecuteBatchEnd() {
+    record(batchStart);
+  }
+
+  private static void record(long start) {
+    var timings = RequestTimings.current();
+    if (timings != null) {
+      timings.recordSqlStatement(System.nanoTime() - start);
+    }
+  }
+}
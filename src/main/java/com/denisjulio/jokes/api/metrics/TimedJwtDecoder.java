@@ -0,0 +1,43 @@
+package com.denisjulio.jokes.api.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times {@code delegate} into the {@code jokes.jwt.decode} timer and the
+ * current request's timings.
+ */
+public class TimedJwtDecoder implements JwtDecoder {
+
+  private final JwtDecoder delegate;
+  private final Timer timer;
+
+  public TimedJwtDecoder(JwtDecoder delegate, MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.timer = Timer.builder("jokes.jwt.decode")
+        .description("Time to decode and validate a bearer token")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
+  @Override
+  public Jwt decode(String token) throws JwtException {
+    var start = System.nanoTime();
+    try {
+      return delegate.decode(token);
+    } finally {
+      var elapsed = System.nanoTime() - start;
+      timer.record(elapsed, TimeUnit.NANOSECONDS);
+      var timings = RequestTimings.current();
+      if (timings != null) {
+        timings.recordJwtDecode(elapsed);
+      }
+    }
+  }
+}
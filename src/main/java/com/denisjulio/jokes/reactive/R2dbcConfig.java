@@ -0,0 +1,22 @@
+package com.denisjulio.jokes.reactive;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
+import org.springframework.data.r2dbc.mapping.R2dbcMappingContext;
+
+@Configuration
+public class R2dbcConfig {
+
+  /**
+   * Quotes every identifier in generated SQL, the {@code author-id} column
+   * is not a valid bare identifier.
+   */
+  @Bean
+  public R2dbcMappingContext r2dbcMappingContext(R2dbcCustomConversions r2dbcCustomConversions) {
+    var mappingContext = new R2dbcMappingContext();
+    mappingContext.setForceQuote(true);
+    mappingContext.setSimpleTypeHolder(r2dbcCustomConversions.getSimpleTypeHolder());
+    return mappingContext;
+  }
+}
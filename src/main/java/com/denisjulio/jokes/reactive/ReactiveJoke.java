@@ -0,0 +1,69 @@
+package com.denisjulio.jokes.reactive;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * R2DBC mapping of the {@code joke} table, serialized exactly like the JPA
+ * {@code Joke}.
+ */
+@Table("joke")
+public class ReactiveJoke {
+
+  @Id
+  private Long id;
+
+  @Column("content")
+  private String content;
+
+  @Column("author-id")
+  private String authorId;
+
+  @Version
+  @Column("version")
+  private Long version;
+
+  public ReactiveJoke() {}
+
+  public ReactiveJoke(String content, String authorId) {
+    this.content = content;
+    this.authorId = authorId;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  void setId(Long id) {
+    this.id = id;
+  }
+
+  public String getContent() {
+    return content;
+  }
+
+  public void setContent(String content) {
+    this.content = content;
+  }
+
+  public String getAuthorId() {
+    return authorId;
+  }
+
+  public void setAuthorId(String authorId) {
+    this.authorId = authorId;
+  }
+
+  @JsonIgnore
+  public Long getVersion() {
+    return version;
+  }
+
+  void setVersion(Long version) {
+    this.version = version;
+  }
+}
@@ -0,0 +1,29 @@
+package com.denisjulio.jokes.reactive;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import com.denisjulio.jokes.api.jokes.InvalidCursorException;
+import com.denisjulio.jokes.api.jokes.JokeNotFoundException;
+
+import jakarta.validation.ConstraintViolationException;
+
+@RestControllerAdvice
+public class ReactiveJokeControllerAdvice {
+
+  @ExceptionHandler
+  ResponseEntity<Object> jokeNotFoundHandler(JokeNotFoundException ex) {
+    return ResponseEntity.notFound().build();
+  }
+
+  @ExceptionHandler
+  ResponseEntity<Object> constraintViolationHandler(ConstraintViolationException ex) {
+    return ResponseEntity.badRequest().build();
+  }
+
+  @ExceptionHandler
+  ResponseEntity<Object> invalidCursorHandler(InvalidCursorException ex) {
+    return ResponseEntity.badRequest().build();
+  }
+}
@@ -0,0 +1,32 @@
+package com.denisjulio.jokes.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+
+/**
+ * Reactive deployment of the Jokes API: WebFlux on Netty, R2DBC towards
+ * Postgres and reactive JWT resource server security, serving the same
+ * contract as the servlet application. Lives outside the servlet
+ * application's package so neither scans the other's components.
+ * <p>
+ * Runs with the {@code reactive} profile, see {@code application-reactive.yml}.
+ */
+@SpringBootApplication(exclude = {
+    DataSourceAutoConfiguration.class,
+    DataSourceTransactionManagerAutoConfiguration.class,
+    HibernateJpaAutoConfiguration.class
+})
+public class ReactiveJokesApiApplication {
+
+  public static final String PROFILE = "reactive";
+
+  public static void main(String[] args) {
+    var application = new SpringApplication(ReactiveJokesApiApplication.class);
+    application.setAdditionalProfiles(PROFILE);
+    application.run(args);
+  }
+
+}
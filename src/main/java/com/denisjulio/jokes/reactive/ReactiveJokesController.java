@@ -0,0 +1,144 @@
+package com.denisjulio.jokes.reactive;
+
+import java.util.List;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.denisjulio.jokes.api.jokes.JokeETags;
+import com.denisjulio.jokes.api.jokes.JokeNotFoundException;
+import com.denisjulio.jokes.api.jokes.JokeSubmissionData;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux counterpart of the servlet {@code JokesController}, same headers
+ * and status codes on the routes both serve. {@code GET /jokes/stream},
+ * {@code GET /authors/{id}/jokes/count}, duplicate detection and the binary
+ * formats are servlet only, this side speaks JSON and always creates.
+ */
+@RestController()
+@RequestMapping("/jokes")
+@Validated
+public class ReactiveJokesController {
+
+  static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+  static final int MAX_BATCH_SIZE = 1000;
+
+  private final ReactiveJokesService jokesService;
+
+  public ReactiveJokesController(ReactiveJokesService jokesService) {
+    this.jokesService = jokesService;
+  }
+
+  @GetMapping
+  public Mono<ResponseEntity<List<ReactiveJoke>>> getJokes(
+      @RequestParam(value = "author", required = false) String author,
+      @RequestParam(value = "after", required = false) String after,
+      @RequestParam(value = "limit", required = false) Integer limit,
+      ServerWebExchange exchange) {
+    return jokesService.getCollectionVersion()
+        .map(version -> JokeETags.forCollection(version, author, after, limit))
+        .flatMap(etag -> exchange.checkNotModified(etag)
+            ? Mono.<ResponseEntity<List<ReactiveJoke>>>empty()
+            : jokesService.getJokes(author, after, limit).map(page -> {
+              var response = ResponseEntity.ok().eTag(etag);
+              page.nextCursor().ifPresent(cursor -> {
+                var next = UriComponentsBuilder.fromUri(exchange.getRequest().getURI())
+                    .replaceQueryParam("after", cursor)
+                    .build()
+                    .toUriString();
+                response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+                response.header(NEXT_CURSOR_HEADER, cursor);
+              });
+              return response.body(page.jokes());
+            }));
+  }
+
+  /**
+   * Newline delimited JSON, written as rows arrive from the database with
+   * backpressure all the way to the client.
+   */
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public Flux<ReactiveJoke> exportJokes() {
+    return jokesService.exportJokes();
+  }
+
+  @PostMapping
+  public Mono<ResponseEntity<ReactiveJoke>> postNewJoke(@RequestBody JokeSubmissionData jokeData,
+      @AuthenticationPrincipal Jwt jwt) {
+    return jokesService.saveJoke(new ReactiveJoke(jokeData.getContent(), jwt.getSubject()))
+        .map(joke -> ResponseEntity.status(201).body(joke));
+  }
+
+  @PostMapping("/batch")
+  public Mono<ResponseEntity<List<ReactiveJoke>>> postNewJokes(
+      @RequestBody @NotEmpty @Size(max = MAX_BATCH_SIZE) List<@Valid @NotNull JokeSubmissionData> jokesData,
+      @AuthenticationPrincipal Jwt jwt) {
+    var newJokes = jokesData.stream()
+        .map(jokeData -> new ReactiveJoke(jokeData.getContent(), jwt.getSubject()))
+        .toList();
+    return jokesService.saveJokes(newJokes)
+        .collectList()
+        .map(jokes -> ResponseEntity.status(201).body(jokes));
+  }
+
+  @GetMapping("/search")
+  public Mono<ResponseEntity<List<ReactiveJoke>>> searchJokes(
+      @RequestParam("q") @NotBlank String query,
+      @RequestParam(value = "limit", required = false) Integer limit) {
+    return jokesService.searchJokes(query, limit)
+        .collectList()
+        .map(ResponseEntity::ok);
+  }
+
+  @GetMapping("/random")
+  public Mono<ResponseEntity<ReactiveJoke>> getRandomJoke() {
+    return jokesService.getRandomJoke()
+        .map(joke -> ResponseEntity.ok()
+            .cacheControl(CacheControl.noStore())
+            .body(joke))
+        .defaultIfEmpty(ResponseEntity.notFound().build());
+  }
+
+  @GetMapping("/{jokeId}")
+  public Mono<ResponseEntity<ReactiveJoke>> getJokeById(@PathVariable(value = "jokeId") Long jokeId,
+      ServerWebExchange exchange) {
+    return jokesService.getJokeById(jokeId)
+        .switchIfEmpty(Mono.error(() -> new JokeNotFoundException(jokeId)))
+        .flatMap(joke -> {
+          var etag = JokeETags.forJoke(joke.getId(), joke.getVersion());
+          return exchange.checkNotModified(etag)
+              ? Mono.<ResponseEntity<ReactiveJoke>>empty()
+              : Mono.just(ResponseEntity.ok().eTag(etag).body(joke));
+        });
+  }
+
+  @DeleteMapping("/{jokeId}")
+  public Mono<ResponseEntity<Object>> deleteJokeById(@PathVariable("jokeId") Long jokeId,
+      @AuthenticationPrincipal Jwt jwt) {
+    return jokesService.deleteJoke(jokeId, jwt.getSubject())
+        .then(Mono.just(ResponseEntity.noContent().<Object>build()));
+  }
+}
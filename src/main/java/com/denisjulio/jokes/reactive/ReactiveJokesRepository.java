@@ -0,0 +1,66 @@
+package com.denisjulio.jokes.reactive;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+
+import com.denisjulio.jokes.api.jokes.JokesCollectionVersion;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveJokesRepository extends R2dbcRepository<ReactiveJoke, Long> {
+
+  /**
+   * Keyset page, seeking the primary key index past {@code after}.
+   */
+  @Query("SELECT * FROM joke WHERE id > :after ORDER BY id LIMIT :limit")
+  Flux<ReactiveJoke> findPageAfter(long after, int limit);
+
+  /**
+   * Keyset page of one author's jokes, seeking the author id index.
+   */
+  @Query("SELECT * FROM joke WHERE \"author-id\" = :authorId AND id > :after ORDER BY id LIMIT :limit")
+  Flux<ReactiveJoke> findPageByAuthorAfter(String authorId, long after, int limit);
+
+  @Query("SELECT * FROM joke ORDER BY id")
+  Flux<ReactiveJoke> streamAll();
+
+  /**
+   * First id of a block of {@code joke_seq} increment size. The JPA side uses
+   * the pooled-lo optimizer on the same sequence, so ids handed out here
+   * never collide with ids Hibernate hands out.
+   */
+  @Query("SELECT nextval('joke_seq')")
+  Mono<Long> nextIdBlock();
+
+  @Modifying
+  @Query("DELETE FROM joke WHERE id = :id AND \"author-id\" = :authorId")
+  Mono<Integer> deleteByIdAndAuthorId(long id, String authorId);
+
+  @Query("SELECT max(id) AS max_id, count(*) AS count FROM joke")
+  Mono<JokesCollectionVersion> findCollectionVersion();
+
+  /**
+   * Seeks to a random point between the smallest and largest id and takes
+   * the next joke, two index probes instead of ordering the table by
+   * {@code random()}. Ids right after gaps are slightly favoured.
+   */
+  @Query("""
+      SELECT * FROM joke
+      WHERE id >= (SELECT min(id) + floor(random() * (max(id) - min(id) + 1)) FROM joke)
+      ORDER BY id LIMIT 1""")
+  Mono<ReactiveJoke> findRandom();
+
+  /**
+   * Postgres full-text search over the GIN expression index, any query term
+   * may match, best ranked first.
+   */
+  @Query("""
+      SELECT j.* FROM joke j,
+        to_tsquery('simple', array_to_string(tsvector_to_array(to_tsvector('simple', :query)), ' | ')) q
+      WHERE to_tsvector('simple', j.content) @@ q
+      ORDER BY ts_rank(to_tsvector('simple', j.content), q) DESC, j.id
+      LIMIT :limit""")
+  Flux<ReactiveJoke> search(String query, int limit);
+}
@@ -0,0 +1,126 @@
+package com.denisjulio.jokes.reactive;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.denisjulio.jokes.api.jokes.JokeCursor;
+import com.denisjulio.jokes.api.jokes.JokeNotFoundException;
+import com.denisjulio.jokes.api.jokes.JokesCollectionVersion;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+public class ReactiveJokesService {
+
+  /**
+   * Increment of {@code joke_seq}, one {@code nextval} reserves this many ids.
+   */
+  static final int ID_BLOCK_SIZE = 50;
+
+  private final ReactiveJokesRepository jokesRepository;
+  private final int defaultPageSize;
+  private final int maxPageSize;
+
+  public ReactiveJokesService(ReactiveJokesRepository jokesRepository,
+      @Value("${jokes.pagination.default-limit:50}") int defaultPageSize,
+      @Value("${jokes.pagination.max-limit:500}") int maxPageSize) {
+    this.jokesRepository = jokesRepository;
+    this.defaultPageSize = defaultPageSize;
+    this.maxPageSize = maxPageSize;
+  }
+
+  public record Page(List<ReactiveJoke> jokes, Optional<String> nextCursor) {
+  }
+
+  /**
+   * Same keyset paging as the servlet application, by {@code authorId} only
+   * when it is given: one extra row tells whether a next page exists.
+   */
+  public Mono<Page> getJokes(String authorId, String after, Integer limit) {
+    var pageSize = pageSize(limit);
+    return Mono.fromCallable(() -> after == null ? 0L : JokeCursor.decode(after))
+        .flatMap(afterId -> (authorId == null
+            ? jokesRepository.findPageAfter(afterId, pageSize + 1)
+            : jokesRepository.findPageByAuthorAfter(authorId, afterId, pageSize + 1)).collectList())
+        .map(jokes -> {
+          if (jokes.size() <= pageSize) {
+            return new Page(jokes, Optional.empty());
+          }
+          var page = jokes.subList(0, pageSize);
+          return new Page(page, Optional.of(JokeCursor.encode(page.get(pageSize - 1).getId())));
+        });
+  }
+
+  public Flux<ReactiveJoke> exportJokes() {
+    return jokesRepository.streamAll();
+  }
+
+  public Mono<JokesCollectionVersion> getCollectionVersion() {
+    return jokesRepository.findCollectionVersion();
+  }
+
+  public Mono<ReactiveJoke> getJokeById(Long jokeId) {
+    return jokesRepository.findById(jokeId);
+  }
+
+  public Mono<ReactiveJoke> getRandomJoke() {
+    return jokesRepository.findRandom();
+  }
+
+  public Flux<ReactiveJoke> searchJokes(String query, Integer limit) {
+    return jokesRepository.search(query, pageSize(limit));
+  }
+
+  public Mono<ReactiveJoke> saveJoke(ReactiveJoke joke) {
+    return jokesRepository.nextIdBlock()
+        .flatMap(id -> {
+          joke.setId(id);
+          return jokesRepository.save(joke);
+        });
+  }
+
+  /**
+   * Saves all jokes in one transaction, reserving ids one sequence block at a
+   * time like Hibernate's pooled-lo optimizer does.
+   */
+  @Transactional
+  public Flux<ReactiveJoke> saveJokes(List<ReactiveJoke> jokes) {
+    var blocks = (jokes.size() + ID_BLOCK_SIZE - 1) / ID_BLOCK_SIZE;
+    return Flux.range(0, blocks)
+        .concatMap(block -> jokesRepository.nextIdBlock())
+        .collectList()
+        .flatMapMany(blockStarts -> {
+          for (int i = 0; i < jokes.size(); i++) {
+            jokes.get(i).setId(blockStarts.get(i / ID_BLOCK_SIZE) + i % ID_BLOCK_SIZE);
+          }
+          return jokesRepository.saveAll(jokes);
+        });
+  }
+
+  /**
+   * Single conditional delete, probing for the row only when nothing was
+   * deleted to tell a missing joke apart from someone else's.
+   */
+  @Transactional
+  public Mono<Void> deleteJoke(Long jokeId, String authorId) {
+    return jokesRepository.deleteByIdAndAuthorId(jokeId, authorId)
+        .flatMap(deleted -> deleted > 0 ? Mono.<Void>empty() : missingOrForbidden(jokeId));
+  }
+
+  private Mono<Void> missingOrForbidden(Long jokeId) {
+    return jokesRepository.existsById(jokeId)
+        .flatMap(exists -> Mono.<Void>error(exists
+            ? new AccessDeniedException("Joke " + jokeId + " belongs to another author")
+            : new JokeNotFoundException(jokeId)));
+  }
+
+  private int pageSize(Integer limit) {
+    return limit == null || limit < 1 ? defaultPageSize : Math.min(limit, maxPageSize);
+  }
+}
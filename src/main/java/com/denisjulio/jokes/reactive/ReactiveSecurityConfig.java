@@ -0,0 +1,34 @@
+package com.denisjulio.jokes.reactive;
+
+import org.springframework.boot.actuate.autoconfigure.security.reactive.EndpointRequest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+
+/**
+ * Same access rules as the servlet {@code SecurityConfig}. The JWT decoder is
+ * Spring Boot's reactive Nimbus decoder for the configured JWK set URI.
+ */
+@Configuration
+@EnableWebFluxSecurity
+public class ReactiveSecurityConfig {
+
+  @Bean
+  public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+    http
+        .authorizeExchange(authorize -> authorize
+            .pathMatchers(HttpMethod.POST, "/jokes", "/jokes/batch").hasAuthority("SCOPE_joker")
+            .pathMatchers(HttpMethod.DELETE, "/jokes/**").hasAuthority("SCOPE_joker")
+            .pathMatchers(HttpMethod.GET, "/jokes/**").permitAll()
+            .matchers(EndpointRequest.to("health")).permitAll()
+            .anyExchange().authenticated())
+        // bearer tokens only, no session cookie a forged request could ride on
+        .csrf(ServerHttpSecurity.CsrfSpec::disable)
+        .oauth2ResourceServer(oauth2 -> oauth2.jwt(Customizer.withDefaults()));
+    return http.build();
+  }
+}
@@ -0,0 +1,14 @@
+-- Same layout Hibernate generates from Joke, validated by SchemaMigrationTest.
+create sequence joke_seq start with 1 increment by 50;
+
+create table joke (
+    id bigint not null primary key,
+    content varchar(255) not null,
+    "author-id" varchar(255) not null,
+    version bigint not null
+);
+
+create index joke_author_id_idx on joke ("author-id", id);
+
+-- used by the reactive deployment's full-text search
+create index joke_content_fts_idx on joke using gin (to_tsvector('simple', content));
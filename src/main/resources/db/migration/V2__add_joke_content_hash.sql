@@ -0,0 +1,19 @@
+-- Normalized content hash for deduplication, mirrors JokeContentHash.of
+alter table joke add column "content-hash" varchar(64);
+
+-- reposts saved before keep a null hash, only the oldest joke of each content gets one
+update joke
+set "content-hash" = hashed.hash
+from (
+    select distinct on (hash) id, hash
+    from (
+        select id, encode(sha256(convert_to(
+            btrim(regexp_replace(lower(normalize(content, NFKC)), '[ \t\n\r\f\v]+', ' ', 'g'), ' '),
+            'UTF8')), 'hex') as hash
+        from joke
+    ) all_hashes
+    order by hash, id
+) hashed
+where joke.id = hashed.id;
+
+create unique index joke_content_hash_idx on joke ("content-hash");
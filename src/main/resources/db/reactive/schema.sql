@@ -0,0 +1,13 @@
+-- Same layout Hibernate generates for the servlet application, so both modes can share a database.
+create sequence if not exists joke_seq start with 1 increment by 50;
+
+create table if not exists joke (
+    id bigint not null primary key,
+    content varchar(255) not null,
+    "author-id" varchar(255) not null,
+    version bigint not null
+);
+
+create index if not exists joke_author_id_idx on joke ("author-id", id);
+
+create index if not exists joke_content_fts_idx on joke using gin (to_tsvector('simple', content));
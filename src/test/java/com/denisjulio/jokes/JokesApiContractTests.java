@@ -0,0 +1,219 @@
+package com.denisjulio.jokes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * Scenarios from {@code openapi.yml} that every deployment mode must pass,
+ * run over HTTP against a real server. Subclasses boot one mode and stub its
+ * JWT decoder so the tokens below resolve to the named users.
+ */
+public abstract class JokesApiContractTests {
+
+  protected static final String AUTHOR = "userOne";
+  protected static final String OTHER_AUTHOR = "userTwo";
+
+  @Autowired
+  protected WebTestClient webTestClient;
+
+  protected record JokeResponse(Long id, String content, String authorId) {
+  }
+
+  protected abstract void stubToken(String token, Jwt jwt);
+
+  @BeforeEach
+  void stubTokens() {
+    for (var subject : List.of(AUTHOR, OTHER_AUTHOR)) {
+      stubToken(subject, Jwt.withTokenValue(subject)
+          .header("alg", "none")
+          .subject(subject)
+          .claim("scope", "joker")
+          .issuedAt(Instant.now())
+          .expiresAt(Instant.now().plusSeconds(3600))
+          .build());
+    }
+  }
+
+  @Test
+  void whenPostNewJokeThenReturnCreatedJokeWithAuthor() {
+    var joke = postJoke("A contract joke", AUTHOR);
+
+    assertThat(joke.id()).isNotNull();
+    assertThat(joke.content()).isEqualTo("A contract joke");
+    assertThat(joke.authorId()).isEqualTo(AUTHOR);
+  }
+
+  @Test
+  void whenGetJokeByIdWithItsETagThenReturnNotModified() {
+    var joke = postJoke("An ETag joke", AUTHOR);
+
+    var etag = webTestClient.get().uri("/jokes/{jokeId}", joke.id())
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(JokeResponse.class).isEqualTo(joke)
+        .returnResult().getResponseHeaders().getETag();
+
+    webTestClient.get().uri("/jokes/{jokeId}", joke.id())
+        .header("If-None-Match", etag)
+        .exchange()
+        .expectStatus().isNotModified();
+  }
+
+  @Test
+  void whenGetJokeByIdAndJokeDoesNotExistThenReturn404() {
+    webTestClient.get().uri("/jokes/{jokeId}", Long.MAX_VALUE)
+        .exchange()
+        .expectStatus().isNotFound();
+  }
+
+  @Test
+  void whenRequestJokesWithLimitThenFollowTheNextCursor() {
+    postJoke("First page joke", AUTHOR);
+    postJoke("Second page joke", AUTHOR);
+
+    var firstPage = webTestClient.get().uri("/jokes?limit=1")
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().value("Link", containsString("rel=\"next\""))
+        .expectBody(new ParameterizedTypeReference<List<JokeResponse>>() {})
+        .returnResult();
+    assertThat(firstPage.getResponseBody()).hasSize(1);
+
+    var cursor = firstPage.getResponseHeaders().getFirst("X-Next-Cursor");
+    webTestClient.get().uri(uri -> uri.path("/jokes").queryParam("limit", 1).queryParam("after", cursor).build())
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(new ParameterizedTypeReference<List<JokeResponse>>() {})
+        .value(page -> assertThat(page).hasSize(1)
+            .allSatisfy(joke -> assertThat(joke.id()).isGreaterThan(firstPage.getResponseBody().get(0).id())));
+  }
+
+  @Test
+  void whenRequestJokesByAuthorThenReturnOnlyTheirJokes() {
+    postJoke("A joke by the first author", AUTHOR);
+    var theirs = postJoke("A joke by the second author", OTHER_AUTHOR);
+
+    webTestClient.get().uri("/jokes?author={author}", OTHER_AUTHOR)
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(new ParameterizedTypeReference<List<JokeResponse>>() {})
+        .value(jokes -> assertThat(jokes).contains(theirs)
+            .allSatisfy(joke -> assertThat(joke.authorId()).isEqualTo(OTHER_AUTHOR)));
+  }
+
+  @Test
+  void whenRequestJokesWithMalformedCursorThenReturn400() {
+    webTestClient.get().uri("/jokes?after=not-a-cursor")
+        .exchange()
+        .expectStatus().isBadRequest();
+  }
+
+  @Test
+  void whenPostJokesBatchThenReturnCreatedInOrder() {
+    webTestClient.post().uri("/jokes/batch")
+        .header("Authorization", "Bearer " + AUTHOR)
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue("""
+            [ { "content": "Batch one" }, { "content": "Batch two" } ]
+            """)
+        .exchange()
+        .expectStatus().isCreated()
+        .expectBody(new ParameterizedTypeReference<List<JokeResponse>>() {})
+        .value(jokes -> assertThat(jokes)
+            .extracting(JokeResponse::content)
+            .containsExactly("Batch one", "Batch two"));
+  }
+
+  @Test
+  void whenPostJokesBatchWithAnInvalidJokeThenReturn400() {
+    webTestClient.post().uri("/jokes/batch")
+        .header("Authorization", "Bearer " + AUTHOR)
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue("""
+            [ { "content": "Batch one" }, { "content": null } ]
+            """)
+        .exchange()
+        .expectStatus().isBadRequest();
+  }
+
+  @Test
+  void whenDeleteOwnJokeThenReturnNoContentAndItIsGone() {
+    var joke = postJoke("A joke to delete", AUTHOR);
+
+    webTestClient.delete().uri("/jokes/{jokeId}", joke.id())
+        .header("Authorization", "Bearer " + AUTHOR)
+        .exchange()
+        .expectStatus().isNoContent();
+    webTestClient.delete().uri("/jokes/{jokeId}", joke.id())
+        .header("Authorization", "Bearer " + AUTHOR)
+        .exchange()
+        .expectStatus().isNotFound();
+  }
+
+  @Test
+  void whenDeleteJokeFromAnotherAuthorThenReturn403() {
+    var joke = postJoke("Someone else's joke", AUTHOR);
+
+    webTestClient.delete().uri("/jokes/{jokeId}", joke.id())
+        .header("Authorization", "Bearer " + OTHER_AUTHOR)
+        .exchange()
+        .expectStatus().isForbidden();
+  }
+
+  @Test
+  void whenExportJokesThenStreamNdjson() {
+    postJoke("An exported joke", AUTHOR);
+
+    webTestClient.get().uri("/jokes/export")
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+        .expectBody(String.class)
+        .value(body -> assertThat(body).contains("An exported joke"));
+  }
+
+  @Test
+  void whenSearchJokesThenReturnBestMatchFirst() {
+    postJoke("A wombat crossed the road", AUTHOR);
+    var best = postJoke("The wombat told a wombat joke", AUTHOR);
+
+    webTestClient.get().uri("/jokes/search?q=Wombat")
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(new ParameterizedTypeReference<List<JokeResponse>>() {})
+        .value(jokes -> assertThat(jokes).hasSize(2).first().isEqualTo(best));
+  }
+
+  @Test
+  void whenGetRandomJokeThenReturnAJoke() {
+    postJoke("A random joke", AUTHOR);
+
+    webTestClient.get().uri("/jokes/random")
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(JokeResponse.class)
+        .value(joke -> assertThat(joke.id()).isNotNull());
+  }
+
+  protected JokeResponse postJoke(String content, String author) {
+    return webTestClient.post().uri("/jokes")
+        .header("Authorization", "Bearer " + author)
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue("{ \"content\": \"" + content + "\" }")
+        .exchange()
+        .expectStatus().isCreated()
+        .expectBody(JokeResponse.class)
+        .returnResult().getResponseBody();
+  }
+}
@@ -0,0 +1,181 @@
+package com.denisjulio.jokes.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.util.unit.DataSize;
+
+import com.denisjulio.jokes.api.jokes.AppendLogJokeStore;
+import com.denisjulio.jokes.api.jokes.Joke;
+import com.denisjulio.jokes.api.jokes.JokeView;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AppendLogJokeStoreTest {
+
+  @TempDir
+  private Path directory;
+  private SimpleMeterRegistry meterRegistry;
+  private AppendLogJokeStore store;
+
+  @AfterEach
+  void closeStore() throws IOException {
+    if (store != null) {
+      store.destroy();
+    }
+  }
+
+  private AppendLogJokeStore open() throws IOException {
+    if (store != null) {
+      store.destroy();
+    }
+    // a small initial mapping, so the tests also grow it
+    meterRegistry = new SimpleMeterRegistry();
+    store = new AppendLogJokeStore(meterRegistry, directory.resolve("jokes.log"),
+        DataSize.ofKilobytes(1), true, 0.5);
+    return store;
+  }
+
+  @Test
+  void whenJokesAreSavedThenPageThemInIdOrder() throws IOException {
+    open();
+    var saved = store.saveAll(IntStream.range(0, 30)
+        .mapToObj(i -> new Joke("Joke " + i, i % 2 == 0 ? "userOne" : "userTwo"))
+        .toList());
+
+    assertThat(saved).extracting(Joke::getId).doesNotContainNull().isSorted();
+    assertThat(store.findViewsAfter(saved.get(9).getId(), 5))
+        .extracting(JokeView::content)
+        .containsExactly("Joke 10", "Joke 11", "Joke 12", "Joke 13", "Joke 14");
+    assertThat(store.findViewsByAuthorAfter("userTwo", 0L, 3))
+        .extracting(JokeView::content)
+        .containsExactly("Joke 1", "Joke 3", "Joke 5");
+    assertThat(store.streamIds().toList()).endsWith(saved.get(29).getId());
+  }
+
+  @Test
+  void whenTheSameContentIsSavedTwiceThenRejectIt() throws IOException {
+    open();
+    var joke = store.save(new Joke("Same joke", "userOne"));
+
+    assertThatThrownBy(() -> store.save(new Joke("  SAME   joke ", "userTwo")))
+        .isInstanceOf(DataIntegrityViolationException.class);
+    assertThat(store.findByContentHash(joke.getContentHash())).get()
+        .extracting(Joke::getId).isEqualTo(joke.getId());
+  }
+
+  @Test
+  void whenDeletingAnotherAuthorsJokeThenKeepIt() throws IOException {
+    open();
+    var joke = store.save(new Joke("Mine", "userOne"));
+
+    assertThat(store.deleteByIdAndAuthorId(joke.getId(), "userTwo")).isZero();
+    assertThat(store.deleteByIdAndAuthorId(joke.getId(), "userOne")).isOne();
+    assertThat(store.existsById(joke.getId())).isFalse();
+  }
+
+  @Test
+  void whenReopenedThenReplayTheLog() throws IOException {
+    open();
+    var kept = store.save(new Joke("Kept", "userOne"));
+    var deleted = store.save(new Joke("Deleted", "userOne"));
+    store.deleteByIdAndAuthorId(deleted.getId(), "userOne");
+
+    open();
+
+    assertThat(store.findViewById(kept.getId())).get().extracting(JokeView::content).isEqualTo("Kept");
+    assertThat(store.existsById(deleted.getId())).isFalse();
+    // ids are never handed out twice, not even the deleted last one
+    assertThat(store.save(new Joke("New", "userOne")).getId()).isGreaterThan(deleted.getId());
+  }
+
+  @Test
+  void whenTheLastWriteWasTornThenRecoverEverythingBeforeIt() throws IOException {
+    open();
+    var kept = store.save(new Joke("Kept", "userOne"));
+    var torn = store.save(new Joke("Torn", "userOne"));
+    var end = (long) meterRegistry.get("jokes.storage.log.size").gauge().value();
+    store.destroy();
+    store = null;
+    // scribble over the content of the last frame, as a crash mid-write would leave it
+    try (var log = FileChannel.open(directory.resolve("jokes.log"), StandardOpenOption.WRITE)) {
+      log.write(ByteBuffer.wrap(new byte[] {1, 2, 3, 4}), end - 4);
+    }
+
+    open();
+
+    assertThat(store.existsById(kept.getId())).isTrue();
+    assertThat(store.existsById(torn.getId())).isFalse();
+    assertThat(store.save(new Joke("After recovery", "userOne")).getId()).isNotNull();
+    open();
+    assertThat(store.findViewsAfter(0L, 10)).extracting(JokeView::content)
+        .containsExactly("Kept", "After recovery");
+  }
+
+  @Test
+  void whenCompactedThenKeepOnlyLiveJokes() throws IOException {
+    open();
+    List<Joke> saved = store.saveAll(IntStream.range(0, 100)
+        .mapToObj(i -> new Joke("Joke " + i, "userOne"))
+        .toList());
+    saved.subList(0, 90).forEach(joke -> store.deleteByIdAndAuthorId(joke.getId(), "userOne"));
+
+    store.compact();
+    open();
+
+    assertThat(store.count()).isEqualTo(10);
+    assertThat(store.findViewsAfter(0L, 100)).extracting(JokeView::content).first().isEqualTo("Joke 90");
+    assertThat(store.save(new Joke("After compaction", "userOne")).getId())
+        .isGreaterThan(saved.get(99).getId());
+    assertThat(directory.resolve("jokes.log.compacting")).doesNotExist();
+  }
+
+  @Test
+  void whenReopeningAfterCompactionFailsThenFailUntilAnotherCompactionReopens() throws IOException {
+    var failing = new AtomicBoolean();
+    meterRegistry = new SimpleMeterRegistry();
+    store = new AppendLogJokeStore(meterRegistry, directory.resolve("jokes.log"),
+        DataSize.ofKilobytes(1), true, 0.5) {
+      @Override
+      protected FileChannel openChannel(Path log) throws IOException {
+        if (failing.get()) {
+          throw new IOException("Simulated open failure");
+        }
+        return super.openChannel(log);
+      }
+    };
+    var kept = store.save(new Joke("Kept", "userOne"));
+    var deleted = store.save(new Joke("Deleted", "userOne"));
+    store.deleteByIdAndAuthorId(deleted.getId(), "userOne");
+
+    failing.set(true);
+    assertThatThrownBy(store::compact).isInstanceOf(DataAccessResourceFailureException.class);
+    assertThatThrownBy(() -> store.findViewById(kept.getId()))
+        .isInstanceOf(DataAccessResourceFailureException.class);
+    assertThatThrownBy(() -> store.save(new Joke("Lost", "userOne")))
+        .isInstanceOf(DataAccessResourceFailureException.class);
+    assertThatThrownBy(store::compact).isInstanceOf(DataAccessResourceFailureException.class);
+
+    failing.set(false);
+    store.compact();
+
+    assertThat(store.findViewById(kept.getId())).map(JokeView::content).contains("Kept");
+    assertThat(store.findViewById(deleted.getId())).isEmpty();
+    assertThat(store.save(new Joke("After reopening", "userOne")).getId())
+        .isGreaterThan(deleted.getId());
+  }
+}
@@ -0,0 +1,105 @@
+package com.denisjulio.jokes.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+class CachingJwtDecoderTest {
+
+  private final JwtDecoder delegate = mock(JwtDecoder.class);
+  private final SettableClock clock = new SettableClock(Instant.parse("2024-01-01T00:00:00Z"));
+  private final CachingJwtDecoder decoder = new CachingJwtDecoder(delegate, 100, clock);
+
+  @Test
+  void whenATokenIsDecodedAgainThenSkipTheDelegate() {
+    var jwt = jwt("token", clock.instant().plus(Duration.ofMinutes(5)));
+    when(delegate.decode("token")).thenReturn(jwt);
+
+    assertThat(decoder.decode("token")).isSameAs(jwt);
+    assertThat(decoder.decode("token")).isSameAs(jwt);
+
+    verify(delegate, times(1)).decode("token");
+  }
+
+  @Test
+  void whenATokenExpiredThenDecodeItAgain() {
+    var expiresAt = clock.instant().plus(Duration.ofMinutes(5));
+    when(delegate.decode("token")).thenReturn(jwt("token", expiresAt));
+    decoder.decode("token");
+
+    clock.set(expiresAt);
+    decoder.decode("token");
+
+    verify(delegate, times(2)).decode("token");
+  }
+
+  @Test
+  void whenATokenHasNoExpiryThenNeverCacheIt() {
+    when(delegate.decode("token")).thenReturn(jwt("token", null));
+
+    decoder.decode("token");
+    decoder.decode("token");
+
+    verify(delegate, times(2)).decode("token");
+  }
+
+  @Test
+  void whenDecodingFailsThenAskTheDelegateAgainNextTime() {
+    when(delegate.decode("token")).thenThrow(new BadJwtException("Bad signature"));
+
+    assertThatThrownBy(() -> decoder.decode("token")).isInstanceOf(BadJwtException.class);
+    assertThatThrownBy(() -> decoder.decode("token")).isInstanceOf(BadJwtException.class);
+
+    verify(delegate, times(2)).decode("token");
+  }
+
+  private Jwt jwt(String token, Instant expiresAt) {
+    var jwt = Jwt.withTokenValue(token)
+        .header("alg", "RS256")
+        .subject("userOne")
+        .issuedAt(clock.instant());
+    return expiresAt == null ? jwt.build() : jwt.expiresAt(expiresAt).build();
+  }
+
+  private static final class SettableClock extends Clock {
+
+    private volatile Instant now;
+
+    SettableClock(Instant now) {
+      this.now = now;
+    }
+
+    void set(Instant now) {
+      this.now = now;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+  }
+}
@@ -0,0 +1,42 @@
+package com.denisjulio.jokes.api;
+
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.denisjulio.jokes.JokesApiContractTests;
+
+/**
+ * The same contract with jokes stored in the embedded append log, without a
+ * database.
+ */
+@SpringBootTest(classes = JokesApiApplication.class, webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("embedded")
+class EmbeddedJokesApiContractTest extends JokesApiContractTests {
+
+  @TempDir
+  private static Path logDirectory;
+
+  @MockBean
+  private JwtDecoder jwtDecoder;
+
+  @DynamicPropertySource
+  static void logPath(DynamicPropertyRegistry registry) {
+    registry.add("jokes.storage.append-log.path", () -> logDirectory.resolve("jokes.log").toString());
+  }
+
+  @Override
+  protected void stubToken(String token, Jwt jwt) {
+    when(jwtDecoder.decode(token)).thenReturn(jwt);
+  }
+}
@@ -0,0 +1,97 @@
+package com.denisjulio.jokes.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.denisjulio.jokes.api.jokes.Joke;
+import com.denisjulio.jokes.api.jokes.JokeView;
+import com.denisjulio.jokes.api.jokes.JokesService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// two nodes of the prod profile sharing one database, as behind a load balancer
+@Testcontainers
+class JokeCoherenceTest {
+
+  @Container
+  private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15");
+
+  private static ConfigurableApplicationContext nodeOne;
+  private static ConfigurableApplicationContext nodeTwo;
+
+  @BeforeAll
+  static void startNodes() {
+    nodeOne = startNode();
+    nodeTwo = startNode();
+  }
+
+  @AfterAll
+  static void stopNodes() {
+    nodeTwo.close();
+    nodeOne.close();
+  }
+
+  @Test
+  void whenAJokeChangesOnOneNodeThenTheOtherNodeFollows() {
+    var one = nodeOne.getBean(JokesService.class);
+    var two = nodeTwo.getBean(JokesService.class);
+
+    var joke = one.saveJoke(new Joke("A joke seen from two nodes", "userOne"));
+    // now cached on node two
+    assertThat(two.getJokeById(joke.getId())).isPresent();
+    await().atMost(Duration.ofSeconds(5))
+        .untilAsserted(() -> assertThat(two.countJokesByAuthor("userOne").count()).isEqualTo(1));
+
+    one.deleteJoke(joke.getId(), "userOne");
+
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+      assertThat(two.getJokeById(joke.getId())).isEmpty();
+      assertThat(two.countJokesByAuthor("userOne").count()).isZero();
+    });
+  }
+
+  @Test
+  void whenTheListenerReconnectsThenChangesItMissedAreReloaded() {
+    var two = nodeTwo.getBean(JokesService.class);
+    var jdbcTemplate = nodeOne.getBean(JdbcTemplate.class);
+    var flushes = nodeTwo.getBean(MeterRegistry.class).get("jokes.coherence.flushes").counter();
+    // the startup load is enough, the first LISTEN doesn't reload again
+    assertThat(flushes.count()).isZero();
+
+    // written behind every node's back, nobody is notified
+    jdbcTemplate.update("insert into joke (id, content, \"author-id\", version) values (?, ?, ?, 0)",
+        3000000L, "An overheard joke", "userMissed");
+    assertThat(two.countJokesByAuthor("userMissed").count()).isZero();
+
+    // drops every node's listener connection, as a network blip would
+    jdbcTemplate.queryForList(
+        "select pg_terminate_backend(pid) from pg_stat_activity where query ilike 'listen %'");
+
+    await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+      assertThat(flushes.count()).isPositive();
+      assertThat(two.countJokesByAuthor("userMissed").count()).isEqualTo(1);
+      assertThat(two.searchJokes("overheard", 10)).extracting(JokeView::id).containsExactly(3000000L);
+    });
+  }
+
+  private static ConfigurableApplicationContext startNode() {
+    return new SpringApplicationBuilder(JokesApiApplication.class).run(
+        "--spring.profiles.active=prod",
+        "--server.port=0",
+        "--spring.datasource.url=" + postgres.getJdbcUrl(),
+        "--spring.datasource.username=" + postgres.getUsername(),
+        "--spring.datasource.password=" + postgres.getPassword());
+  }
+}
@@ -0,0 +1,109 @@
+package com.denisjulio.jokes.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.denisjulio.jokes.api.jokes.DuplicateJokeException;
+import com.denisjulio.jokes.api.jokes.IngestionQueueFullException;
+import com.denisjulio.jokes.api.jokes.IngestionTimeoutException;
+import com.denisjulio.jokes.api.jokes.Joke;
+import com.denisjulio.jokes.api.jokes.JokeIngestionQueue;
+import com.denisjulio.jokes.api.jokes.JokesService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class JokeIngestionQueueTest {
+
+  private final JokesService jokesService = mock(JokesService.class);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private JokeIngestionQueue queue;
+
+  @AfterEach
+  void stopQueue() {
+    if (queue != null && queue.isRunning()) {
+      queue.stop();
+    }
+  }
+
+  @Test
+  void whenJokesArriveWithinTheFlushIntervalThenCommitThemTogether() {
+    when(jokesService.saveJokes(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+    queue = new JokeIngestionQueue(jokesService, meterRegistry, 100, 10, Duration.ofSeconds(5), Duration.ofSeconds(10));
+    queue.start();
+
+    List<CompletableFuture<Joke>> saved = IntStream.range(0, 10)
+        .mapToObj(i -> queue.submit(new Joke("Joke " + i, "userOne")))
+        .toList();
+
+    assertThat(saved).allSatisfy(future -> assertThat(future.join()).isNotNull());
+    var batches = meterRegistry.get("jokes.ingestion.batch.size").summary();
+    assertThat(batches.count()).isLessThan(10);
+    assertThat(batches.totalAmount()).isEqualTo(10);
+  }
+
+  @Test
+  void whenTheQueueIsFullThenRejectTheJoke() {
+    queue = new JokeIngestionQueue(jokesService, meterRegistry, 0, 10, Duration.ofMillis(5), Duration.ofSeconds(10));
+    queue.start();
+
+    assertThatThrownBy(() -> queue.submit(new Joke("One too many", "userOne")))
+        .isInstanceOf(IngestionQueueFullException.class);
+  }
+
+  @Test
+  void whenAQueuedJokeRepostsASavedOneThenFailItsSubmissionWithTheExistingJoke() {
+    var existing = new Joke("A saved joke", "userTwo");
+    when(jokesService.saveJokes(anyList())).thenAnswer(invocation -> List.of(existing));
+    queue = new JokeIngestionQueue(jokesService, meterRegistry, 100, 1, Duration.ofMillis(5), Duration.ofSeconds(10));
+    queue.start();
+
+    assertThatThrownBy(() -> queue.save(new Joke("a SAVED  joke", "userOne")))
+        .isInstanceOfSatisfying(DuplicateJokeException.class,
+            ex -> assertThat(ex.getExisting()).isSameAs(existing));
+  }
+
+  @Test
+  void whenTheCommitTakesTooLongThenStopWaitingForIt() {
+    var release = new CountDownLatch(1);
+    when(jokesService.saveJokes(anyList())).thenAnswer(invocation -> {
+      release.await();
+      return invocation.getArgument(0);
+    });
+    queue = new JokeIngestionQueue(jokesService, meterRegistry, 100, 1, Duration.ofMillis(5),
+        Duration.ofMillis(50));
+    queue.start();
+
+    try {
+      assertThatThrownBy(() -> queue.save(new Joke("A slow joke", "userOne")))
+          .isInstanceOf(IngestionTimeoutException.class);
+    } finally {
+      release.countDown();
+    }
+  }
+
+  @Test
+  void whenACommitFailsWithAnErrorThenFailItsJokesAndKeepWriting() {
+    when(jokesService.saveJokes(anyList()))
+        .thenThrow(new OutOfMemoryError("Simulated"))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+    queue = new JokeIngestionQueue(jokesService, meterRegistry, 100, 1, Duration.ofMillis(5),
+        Duration.ofSeconds(10));
+    queue.start();
+
+    assertThat(queue.submit(new Joke("An unlucky joke", "userOne")))
+        .failsWithin(Duration.ofSeconds(5));
+    assertThat(queue.save(new Joke("A lucky joke", "userOne")).getContent()).isEqualTo("A lucky joke");
+  }
+}
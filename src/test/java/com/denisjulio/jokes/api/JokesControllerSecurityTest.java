@@ -1,8 +1,15 @@
 package com.denisjulio.jokes.api;
 
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import org.json.JSONObject;
@@ -22,12 +29,21 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import com.denisjulio.jokes.api.jokes.JokeProtobufHttpMessageConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
 @SpringBootTest
 @Testcontainers
 @AutoConfigureMockMvc()
@@ -40,16 +56,14 @@ class JokesControllerSecurityTest {
   @Autowired
   private MockMvc mvc;
 
+  private static final AtomicInteger submissions = new AtomicInteger();
+
   private String jokeSubmissionData;
   private List<Jwt> validJwts;
 
   @BeforeEach
   void setup() {
-    jokeSubmissionData = """
-        {
-          "content": "A new Joke"
-        }
-        """;
+    jokeSubmissionData = newJokeSubmission();
     validJwts = new ArrayList<>();
     validJwts.add(Jwt.withTokenValue("token")
         .header("alg", "none")
@@ -78,6 +92,39 @@ class JokesControllerSecurityTest {
     JSONAssert.assertEquals(jokeSubmissionData, jsonRes, JSONCompareMode.LENIENT);
   }
 
+  @Test
+  void whenRepostingASavedJokeThenReturnTheExistingOneWithoutInserting() throws Exception {
+    var original = new JSONObject(mvc.perform(post("/jokes")
+        .content(jokeSubmissionData)
+        .contentType(MediaType.APPLICATION_JSON)
+        .with(jwt().jwt(validJwts.get(0))))
+        .andExpect(status().isCreated())
+        .andReturn().getResponse().getContentAsString());
+    var reposter = validJwts.get(1).getSubject();
+    var countBefore = new JSONObject(mvc.perform(get("/authors/{authorId}/jokes/count", reposter))
+        .andReturn().getResponse().getContentAsString()).getLong("count");
+    var repost = """
+        { "content": "  %s " }
+        """.formatted(original.getString("content").toUpperCase());
+
+    mvc.perform(post("/jokes")
+        .content(repost)
+        .contentType(MediaType.APPLICATION_JSON)
+        .with(jwt().jwt(validJwts.get(1))))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.id").value(original.getLong("id")))
+        .andExpect(jsonPath("$.authorId").value(validJwts.get(0).getSubject()));
+    mvc.perform(post("/jokes/batch")
+        .content("[" + repost + ", { \"content\": \"A joke only in this batch\" }]")
+        .contentType(MediaType.APPLICATION_JSON)
+        .with(jwt().jwt(validJwts.get(1))))
+        .andExpect(status().isCreated())
+        .andExpect(jsonPath("$[0].id").value(original.getLong("id")))
+        .andExpect(jsonPath("$[1].authorId").value(reposter));
+    mvc.perform(get("/authors/{authorId}/jokes/count", reposter))
+        .andExpect(jsonPath("$.count", is((int) countBefore + 1)));
+  }
+
   @Test
   void whenPostNewJokeWithInsufficientAuthoritiesThenReturn403() throws Exception {
     var tknSub = "user";
@@ -88,6 +135,40 @@ class JokesControllerSecurityTest {
         .andExpect(status().is(403));
   }
 
+  @Test
+  void whenPostJokesBatchWithValidJwtThenReturnCreatedInOrder() throws Exception {
+    var batch = """
+        [
+          { "content": "First joke" },
+          { "content": "Second joke" }
+        ]
+        """;
+    mvc.perform(post("/jokes/batch")
+        .content(batch)
+        .contentType(MediaType.APPLICATION_JSON)
+        .with(jwt().jwt(validJwts.get(0))))
+        .andExpect(status().isCreated())
+        .andExpect(jsonPath("$.length()").value(2))
+        .andExpect(jsonPath("$[0].id").value(notNullValue()))
+        .andExpect(jsonPath("$[0].content").value("First joke"))
+        .andExpect(jsonPath("$[1].content").value("Second joke"));
+  }
+
+  @Test
+  void whenPostJokesBatchWithAnInvalidJokeThenReturn400() throws Exception {
+    var batch = """
+        [
+          { "content": "First joke" },
+          { "content": null }
+        ]
+        """;
+    mvc.perform(post("/jokes/batch")
+        .content(batch)
+        .contentType(MediaType.APPLICATION_JSON)
+        .with(jwt().jwt(validJwts.get(0))))
+        .andExpect(status().isBadRequest());
+  }
+
   @Test
   void whenDeleteJokeByIdWithValidJwtAndBeingItsAuthorThenReturnNoContent() throws Exception {
     var jsonRes = mvc.perform(post("/jokes")
@@ -114,6 +195,13 @@ class JokesControllerSecurityTest {
         .andExpect(status().is(403));
   }
 
+  @Test
+  void whenDeleteJokeByIdThatDoesNotExistThenReturn404() throws Exception {
+    mvc.perform(delete("/jokes/{jokeId}", 999)
+        .with(jwt().jwt(validJwts.get(0))))
+        .andExpect(status().isNotFound());
+  }
+
   @Test
   void whenRequestJokesThenReturnSuccessful() throws Exception {
     mvc.perform(get("/jokes")
@@ -122,6 +210,74 @@ class JokesControllerSecurityTest {
         .andExpect(jsonPath("$").isArray());
   }
 
+  @Test
+  void whenRequestJokesThenReportServerTiming() throws Exception {
+    mvc.perform(get("/jokes")
+        .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Server-Timing", containsString("sql;dur=")));
+  }
+
+  @Test
+  void whenRequestJokesWithLimitThenReturnPageAndNextLink() throws Exception {
+    for (int i = 0; i < 2; i++) {
+      mvc.perform(post("/jokes")
+          .content(newJokeSubmission())
+          .contentType(MediaType.APPLICATION_JSON)
+          .with(jwt().jwt(validJwts.get(0))));
+    }
+    var cursor = mvc.perform(get("/jokes")
+        .param("limit", "1")
+        .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(1))
+        .andExpect(header().string("Link", containsString("rel=\"next\"")))
+        .andReturn().getResponse().getHeader("X-Next-Cursor");
+
+    mvc.perform(get("/jokes")
+        .param("limit", "1")
+        .param("after", cursor)
+        .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(1));
+  }
+
+  @Test
+  void whenRequestJokesByAuthorThenReturnOnlyTheirJokesAndCount() throws Exception {
+    var author = validJwts.get(1).getSubject();
+    mvc.perform(post("/jokes")
+        .content(jokeSubmissionData)
+        .contentType(MediaType.APPLICATION_JSON)
+        .with(jwt().jwt(validJwts.get(0))))
+        .andExpect(status().isCreated());
+    var countBefore = new JSONObject(mvc.perform(get("/authors/{authorId}/jokes/count", author))
+        .andExpect(status().isOk())
+        .andReturn().getResponse().getContentAsString()).getLong("count");
+    mvc.perform(post("/jokes")
+        .content(newJokeSubmission())
+        .contentType(MediaType.APPLICATION_JSON)
+        .with(jwt().jwt(validJwts.get(1))))
+        .andExpect(status().isCreated());
+
+    mvc.perform(get("/jokes")
+        .param("author", author)
+        .param("limit", "500"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[*].authorId", everyItem(is(author))));
+    mvc.perform(get("/authors/{authorId}/jokes/count", author))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.authorId", is(author)))
+        .andExpect(jsonPath("$.count", is((int) countBefore + 1)));
+  }
+
+  @Test
+  void whenRequestJokesWithMalformedCursorThenReturn400() throws Exception {
+    mvc.perform(get("/jokes")
+        .param("after", "not-a-cursor")
+        .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isBadRequest());
+  }
+
   @Test
   void whenGetJokeByIdAndJokeExistsThenReturnSuccesful() throws Exception {
     var jsonRes = mvc.perform(post("/jokes")
@@ -140,10 +296,202 @@ class JokesControllerSecurityTest {
         .andExpect(jsonPath("$.content", is(json.get("content"))));
   }
 
+  @Test
+  void whenGetJokeByIdAcceptingCborThenReturnCbor() throws Exception {
+    var jsonRes = mvc.perform(post("/jokes")
+        .content(jokeSubmissionData)
+        .contentType(MediaType.APPLICATION_JSON)
+        .with(jwt().jwt(validJwts.get(0))))
+        .andReturn().getResponse().getContentAsString();
+    var json = new JSONObject(jsonRes);
+
+    var cbor = mvc.perform(get("/jokes/{jokeId}", json.get("id"))
+        .accept(MediaType.APPLICATION_CBOR))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+        .andReturn().getResponse().getContentAsByteArray();
+    var joke = new ObjectMapper(new CBORFactory()).readTree(cbor);
+
+    assertThat(joke.get("id").asLong()).isEqualTo(json.getLong("id"));
+    assertThat(joke.get("content").asText()).isEqualTo(json.getString("content"));
+  }
+
+  @Test
+  void whenPostNewJokeAsProtobufThenReturnProtobuf() throws Exception {
+    var body = new ByteArrayOutputStream();
+    var submission = CodedOutputStream.newInstance(body);
+    submission.writeString(1, "A protobuf joke");
+    submission.flush();
+
+    var created = mvc.perform(post("/jokes")
+        .content(body.toByteArray())
+        .contentType(JokeProtobufHttpMessageConverter.PROTOBUF)
+        .accept(JokeProtobufHttpMessageConverter.PROTOBUF)
+        .with(jwt().jwt(validJwts.get(0))))
+        .andExpect(status().isCreated())
+        .andExpect(content().contentType(JokeProtobufHttpMessageConverter.PROTOBUF))
+        .andReturn().getResponse().getContentAsByteArray();
+    var joke = CodedInputStream.newInstance(created);
+
+    assertThat(joke.readTag()).isEqualTo(WireFormat.makeTag(1, WireFormat.WIRETYPE_VARINT));
+    assertThat(joke.readInt64()).isPositive();
+    assertThat(joke.readTag()).isEqualTo(WireFormat.makeTag(2, WireFormat.WIRETYPE_LENGTH_DELIMITED));
+    assertThat(joke.readString()).isEqualTo("A protobuf joke");
+  }
+
+  @Test
+  void whenRepostingAJokeAsProtobufThenReturnTheExistingJokeAsProtobuf() throws Exception {
+    var body = new ByteArrayOutputStream();
+    var submission = CodedOutputStream.newInstance(body);
+    submission.writeString(1, "A reposted protobuf joke");
+    submission.flush();
+    var original = CodedInputStream.newInstance(mvc.perform(post("/jokes")
+        .content(body.toByteArray())
+        .contentType(JokeProtobufHttpMessageConverter.PROTOBUF)
+        .accept(JokeProtobufHttpMessageConverter.PROTOBUF)
+        .with(jwt().jwt(validJwts.get(0))))
+        .andExpect(status().isCreated())
+        .andReturn().getResponse().getContentAsByteArray());
+    original.readTag();
+    var originalId = original.readInt64();
+
+    var reposted = mvc.perform(post("/jokes")
+        .content(body.toByteArray())
+        .contentType(JokeProtobufHttpMessageConverter.PROTOBUF)
+        .accept(JokeProtobufHttpMessageConverter.PROTOBUF)
+        .with(jwt().jwt(validJwts.get(1))))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(JokeProtobufHttpMessageConverter.PROTOBUF))
+        .andReturn().getResponse().getContentAsByteArray();
+    var joke = CodedInputStream.newInstance(reposted);
+
+    assertThat(joke.readTag()).isEqualTo(WireFormat.makeTag(1, WireFormat.WIRETYPE_VARINT));
+    assertThat(joke.readInt64()).isEqualTo(originalId);
+  }
+
+  @Test
+  void whenGetJokeByIdWithMatchingETagThenReturnNotModified() throws Exception {
+    var jsonRes = mvc.perform(post("/jokes")
+        .content(jokeSubmissionData)
+        .contentType(MediaType.APPLICATION_JSON)
+        .with(jwt().jwt(validJwts.get(0))))
+        .andReturn().getResponse().getContentAsString();
+    var json = new JSONObject(jsonRes);
+
+    var etag = mvc.perform(get("/jokes/{jokeId}", json.get("id"))
+        .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(header().exists("ETag"))
+        .andReturn().getResponse().getHeader("ETag");
+
+    mvc.perform(get("/jokes/{jokeId}", json.get("id"))
+        .header("If-None-Match", etag)
+        .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isNotModified())
+        .andExpect(content().string(""));
+  }
+
+  @Test
+  void whenGetJokeByIdAfterDeletingItThenReturn404() throws Exception {
+    var jsonRes = mvc.perform(post("/jokes")
+        .content(jokeSubmissionData)
+        .contentType(MediaType.APPLICATION_JSON)
+        .with(jwt().jwt(validJwts.get(0))))
+        .andReturn().getResponse().getContentAsString();
+    var json = new JSONObject(jsonRes);
+
+    // now cached
+    mvc.perform(get("/jokes/{jokeId}", json.get("id"))
+        .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk());
+
+    mvc.perform(delete("/jokes/{jokeId}", json.get("id"))
+        .with(jwt().jwt(validJwts.get(0))))
+        .andExpect(status().isNoContent());
+
+    mvc.perform(get("/jokes/{jokeId}", json.get("id"))
+        .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  void whenSearchJokesThenReturnBestMatchFirst() throws Exception {
+    var batch = """
+        [
+          { "content": "Why did the penguin cross the road" },
+          { "content": "A penguin walks into a bar, penguin style" }
+        ]
+        """;
+    mvc.perform(post("/jokes/batch")
+        .content(batch)
+        .contentType(MediaType.APPLICATION_JSON)
+        .with(jwt().jwt(validJwts.get(0))));
+
+    mvc.perform(get("/jokes/search")
+        .param("q", "Penguin")
+        .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].content").value("A penguin walks into a bar, penguin style"));
+  }
+
+  @Test
+  void whenGetRandomJokeAfterPostingOneThenReturnAJoke() throws Exception {
+    mvc.perform(post("/jokes")
+        .content(jokeSubmissionData)
+        .contentType(MediaType.APPLICATION_JSON)
+        .with(jwt().jwt(validJwts.get(0))));
+
+    mvc.perform(get("/jokes/random")
+        .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.id").value(notNullValue()));
+  }
+
+  @Test
+  void whenSubscribedToTheStreamThenReceivePostedJokes() throws Exception {
+    var stream = mvc.perform(get("/jokes/stream")
+        .accept(MediaType.TEXT_EVENT_STREAM))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+
+    mvc.perform(post("/jokes")
+        .content("""
+            { "content": "A streamed joke" }
+            """)
+        .contentType(MediaType.APPLICATION_JSON)
+        .with(jwt().jwt(validJwts.get(0))))
+        .andExpect(status().isCreated());
+
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(stream.getResponse().getContentAsString())
+        .contains("event:joke-created")
+        .contains("A streamed joke"));
+  }
+
   @Test
   void whenGetJokeByIdAndJokeDoesNotExistThenReturn404() throws Exception {
     mvc.perform(get("/jokes/{jokeId}", 999)
         .accept(MediaType.APPLICATION_JSON))
         .andExpect(status().isNotFound());
   }
+
+  @Test
+  void whenScrapingMetricsWithoutATokenThenReturn401() throws Exception {
+    mvc.perform(get("/actuator/prometheus"))
+        .andExpect(status().isUnauthorized());
+  }
+
+  @Test
+  void whenCheckingHealthWithoutATokenThenReturnOk() throws Exception {
+    mvc.perform(get("/actuator/health"))
+        .andExpect(status().isOk());
+  }
+
+  // every submission is a new joke, reposts of saved content aren't inserted
+  private static String newJokeSubmission() {
+    return """
+        {
+          "content": "A new Joke %d"
+        }
+        """.formatted(submissions.incrementAndGet());
+  }
 }
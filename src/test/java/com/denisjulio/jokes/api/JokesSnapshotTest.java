@@ -0,0 +1,70 @@
+package com.denisjulio.jokes.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+@SpringBootTest(properties = "jokes.snapshot.enabled=true")
+@Testcontainers
+@AutoConfigureMockMvc
+class JokesSnapshotTest {
+
+  @Container
+  @ServiceConnection
+  private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15");
+
+  @Autowired
+  private MockMvc mvc;
+
+  @Test
+  void whenRequestFirstJokesAcceptingGzipThenServeTheRebuiltSnapshot() throws Exception {
+    mvc.perform(post("/jokes")
+        .content("""
+            { "content": "A snapshot joke" }
+            """)
+        .contentType(MediaType.APPLICATION_JSON)
+        .with(jwt().jwt(jwt -> jwt.subject("userOne").claim("scope", "joker"))))
+        .andExpect(status().isCreated());
+
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+      var gzipped = mvc.perform(get("/jokes")
+          .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+          .andExpect(status().isOk())
+          .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+          .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+          .andReturn().getResponse().getContentAsByteArray();
+      try (var json = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+        assertThat(new String(json.readAllBytes(), StandardCharsets.UTF_8)).contains("A snapshot joke");
+      }
+    });
+  }
+
+  @Test
+  void whenRequestFirstJokesWithoutGzipThenServePlainJson() throws Exception {
+    mvc.perform(get("/jokes"))
+        .andExpect(status().isOk())
+        .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+        .andExpect(header().exists(HttpHeaders.ETAG));
+  }
+}
@@ -0,0 +1,40 @@
+package com.denisjulio.jokes.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestOperations;
+
+class JwkSetRefresherTest {
+
+  private static final String JWK_SET_URI = "https://issuer.example/certs";
+
+  private final RestOperations restOperations = mock(RestOperations.class);
+  private final ConcurrentMapCache jwkSetCache = new ConcurrentMapCache("jwkSet");
+  private final JwkSetRefresher refresher = new JwkSetRefresher(JWK_SET_URI, restOperations, jwkSetCache);
+
+  @Test
+  void whenRefreshedThenCacheTheFetchedSet() {
+    when(restOperations.getForObject(JWK_SET_URI, String.class)).thenReturn("{\"keys\":[1]}");
+
+    refresher.afterSingletonsInstantiated();
+
+    assertThat(jwkSetCache.get(JWK_SET_URI, String.class)).isEqualTo("{\"keys\":[1]}");
+  }
+
+  @Test
+  void whenAFetchFailsThenKeepTheLastGoodSet() {
+    when(restOperations.getForObject(JWK_SET_URI, String.class))
+        .thenReturn("{\"keys\":[1]}")
+        .thenThrow(new ResourceAccessException("Connection refused"));
+    refresher.afterSingletonsInstantiated();
+
+    refresher.refresh();
+
+    assertThat(jwkSetCache.get(JWK_SET_URI, String.class)).isEqualTo("{\"keys\":[1]}");
+  }
+}
@@ -0,0 +1,196 @@
+package com.denisjulio.jokes.api;
+
+import static org.awaitility.Awaitility.await;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HexFormat;
+
+import org.flywaydb.core.Flyway;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+// two unrelated Postgres instances, so where a read went shows in what it returns
+@SpringBootTest
+@Testcontainers
+@AutoConfigureMockMvc
+// the last test stops the replica
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ReadReplicasTest {
+
+  @Container
+  @ServiceConnection
+  private static final PostgreSQLContainer<?> primary = new PostgreSQLContainer<>("postgres:15");
+
+  @Container
+  private static final PostgreSQLContainer<?> replica = new PostgreSQLContainer<>("postgres:15");
+
+  @Autowired
+  private MockMvc mvc;
+
+  @DynamicPropertySource
+  private static void replicaProperties(DynamicPropertyRegistry registry) {
+    registry.add("jokes.replicas.urls", replica::getJdbcUrl);
+    registry.add("jokes.replicas.username", replica::getUsername);
+    registry.add("jokes.replicas.password", replica::getPassword);
+    registry.add("jokes.replicas.health-check-interval", () -> "200ms");
+    registry.add("jokes.replicas.connection-timeout", () -> "250ms");
+  }
+
+  @BeforeAll
+  static void seedReplica() throws SQLException {
+    Flyway.configure()
+        .dataSource(replica.getJdbcUrl(), replica.getUsername(), replica.getPassword())
+        .load()
+        .migrate();
+    execute(replica, "insert into joke (id, content, \"author-id\", version)"
+        + " values (1000000, 'Only on the replica', 'replicated', 0)");
+  }
+
+  @Test
+  @Order(1)
+  void whenAJokeWasDeletedThenDoNotLoadItBackFromALaggingReplica() throws Exception {
+    var author = jwt().jwt(jwt -> jwt.subject("deleter").claim("scope", "joker"));
+    var jokeId = new JSONObject(mvc.perform(post("/jokes")
+        .content("""
+            { "content": "Deleted on the primary" }
+            """)
+        .contentType(MediaType.APPLICATION_JSON)
+        .with(author))
+        .andExpect(status().isCreated())
+        .andReturn().getResponse().getContentAsString()).getLong("id");
+    // the replica still has the joke, the delete hasn't reached it yet
+    execute(replica, "insert into joke (id, content, \"author-id\", version)"
+        + " values (" + jokeId + ", 'Deleted on the primary', 'deleter', 0)");
+
+    mvc.perform(delete("/jokes/{jokeId}", jokeId).with(author))
+        .andExpect(status().isNoContent());
+
+    mvc.perform(get("/jokes/{jokeId}", jokeId))
+        .andExpect(status().isNotFound());
+  }
+
+  @Test
+  @Order(2)
+  void whenARepostRacesTheOriginalThenReturnTheOriginal() throws Exception {
+    // committed by another node after this one checked for duplicates, so only the unique index catches it
+    execute(primary, "insert into joke (id, content, \"author-id\", \"content-hash\", version)"
+        + " values (2000000, 'A raced repost', 'racer', '" + sha256("a raced repost") + "', 0)");
+
+    mvc.perform(post("/jokes")
+        .content("""
+            { "content": "A raced repost" }
+            """)
+        .contentType(MediaType.APPLICATION_JSON)
+        .with(jwt().jwt(jwt -> jwt.subject("reposter").claim("scope", "joker"))))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.id").value(2000000))
+        .andExpect(jsonPath("$.authorId").value("racer"));
+  }
+
+  @Test
+  @Order(3)
+  void whenABatchRacesAnOriginalThenReturnTheOriginalInPlace() throws Exception {
+    execute(primary, "insert into joke (id, content, \"author-id\", \"content-hash\", version)"
+        + " values (2000001, 'A raced batch joke', 'racer', '" + sha256("a raced batch joke") + "', 0)");
+
+    mvc.perform(post("/jokes/batch")
+        .content("""
+            [ { "content": "A fresh batch joke" }, { "content": "A raced batch joke" } ]
+            """)
+        .contentType(MediaType.APPLICATION_JSON)
+        .with(jwt().jwt(jwt -> jwt.subject("reposter").claim("scope", "joker"))))
+        .andExpect(status().isCreated())
+        .andExpect(jsonPath("$[0].authorId").value("reposter"))
+        .andExpect(jsonPath("$[1].id").value(2000001))
+        .andExpect(jsonPath("$[1].authorId").value("racer"));
+  }
+
+  @Test
+  @Order(4)
+  void whenAReplicaServedAStalePageThenDoNotValidateItOnceItCaughtUp() throws Exception {
+    mvc.perform(post("/jokes")
+        .content("""
+            { "content": "Not replicated yet" }
+            """)
+        .contentType(MediaType.APPLICATION_JSON)
+        .with(jwt().jwt(jwt -> jwt.subject("laggard").claim("scope", "joker"))))
+        .andExpect(status().isCreated());
+    var staleETag = mvc.perform(get("/jokes").param("author", "laggard"))
+        .andExpect(jsonPath("$.length()").value(0))
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+    // the replica catches up
+    execute(replica, "insert into joke (id, content, \"author-id\", version)"
+        + " values (3000000, 'Not replicated yet', 'laggard', 0)");
+
+    mvc.perform(get("/jokes").param("author", "laggard").header(HttpHeaders.IF_NONE_MATCH, staleETag))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(1));
+  }
+
+  @Test
+  @Order(5)
+  void whenReadingThenUseTheReplicaUnlessTheAuthorJustWrote() throws Exception {
+    mvc.perform(get("/jokes").param("author", "replicated"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].content").value("Only on the replica"));
+
+    mvc.perform(post("/jokes")
+        .content("""
+            { "content": "Written to the primary" }
+            """)
+        .contentType(MediaType.APPLICATION_JSON)
+        .with(jwt().jwt(jwt -> jwt.subject("writer").claim("scope", "joker"))))
+        .andExpect(status().isCreated());
+
+    // the author reads their own write from the primary, everyone else the replica that never got it
+    mvc.perform(get("/jokes").param("author", "writer")
+        .with(jwt().jwt(jwt -> jwt.subject("writer").claim("scope", "joker"))))
+        .andExpect(jsonPath("$.length()").value(1));
+    mvc.perform(get("/jokes").param("author", "writer"))
+        .andExpect(jsonPath("$.length()").value(0));
+
+    replica.stop();
+
+    await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> mvc.perform(get("/jokes").param("author", "writer"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(1)));
+  }
+
+  private static void execute(PostgreSQLContainer<?> database, String sql) throws SQLException {
+    try (var connection = database.createConnection(""); var statement = connection.createStatement()) {
+      statement.execute(sql);
+    }
+  }
+
+  private static String sha256(String content) throws NoSuchAlgorithmException {
+    var digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+    return HexFormat.of().formatHex(digest);
+  }
+}
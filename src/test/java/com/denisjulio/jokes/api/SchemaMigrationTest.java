@@ -0,0 +1,41 @@
+package com.denisjulio.jokes.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.denisjulio.jokes.api.jokes.Joke;
+import com.denisjulio.jokes.api.jokes.JokesService;
+
+// the prod profile builds the schema from db/migration, Hibernate only checks it here
+@SpringBootTest(properties = "spring.jpa.hibernate.ddl-auto=validate")
+@ActiveProfiles("prod")
+@Testcontainers
+class SchemaMigrationTest {
+
+  @Container
+  @ServiceConnection
+  private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15");
+
+  @Autowired
+  private JokesService jokesService;
+
+  @Test
+  void whenSchemaIsMigratedThenJokesRoundTrip() {
+    var saved = jokesService.saveJokes(List.of(new Joke("A migrated joke", "userOne"),
+        new Joke("Another migrated joke", "userOne")));
+
+    assertThat(jokesService.getJokeById(saved.get(0).getId()))
+        .hasValueSatisfying(joke -> assertThat(joke.content()).isEqualTo("A migrated joke"));
+    assertThat(jokesService.countJokesByAuthor("userOne").count()).isEqualTo(2);
+  }
+}
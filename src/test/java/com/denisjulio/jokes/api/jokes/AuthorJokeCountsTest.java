@@ -0,0 +1,65 @@
+package com.denisjulio.jokes.api.jokes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+// the store and transactions are mocked, so saves can be slipped into the middle of a reseed
+class AuthorJokeCountsTest {
+
+  private final JokeStore jokeStore = mock(JokeStore.class);
+  private final AuthorJokeCounts authorJokeCounts =
+      new AuthorJokeCounts(jokeStore, mock(PlatformTransactionManager.class));
+
+  @Test
+  void whenASaveCommitsBeforeTheReseedCountThenCountItOnce() {
+    var joke = new Joke(7L, "Counted already", "userOne", 0L);
+    when(jokeStore.streamAuthorCounts()).thenAnswer(invocation -> {
+      // committed before the count's snapshot, its event arrives while counting
+      authorJokeCounts.onJokeSaved(new JokeSavedEvent(joke));
+      return Stream.of(new AuthorJokesCount("userOne", 1));
+    });
+    when(jokeStore.findViewsByIdIn(anyCollection()))
+        .thenReturn(List.of(new JokeView(7L, "Counted already", "userOne", 0L)));
+
+    authorJokeCounts.afterSingletonsInstantiated();
+
+    assertThat(authorJokeCounts.get("userOne").count()).isEqualTo(1);
+  }
+
+  @Test
+  void whenASaveCommitsAfterTheReseedCountThenAddIt() {
+    var joke = new Joke(7L, "Not counted yet", "userOne", 0L);
+    when(jokeStore.streamAuthorCounts()).thenAnswer(invocation -> {
+      authorJokeCounts.onJokeSaved(new JokeSavedEvent(joke));
+      return Stream.of(new AuthorJokesCount("userTwo", 2));
+    });
+    when(jokeStore.findViewsByIdIn(anyCollection())).thenReturn(List.of());
+
+    authorJokeCounts.afterSingletonsInstantiated();
+
+    assertThat(authorJokeCounts.get("userOne").count()).isEqualTo(1);
+    assertThat(authorJokeCounts.get("userTwo").count()).isEqualTo(2);
+  }
+
+  @Test
+  void whenAJokeIsSavedAndDeletedDuringAReseedThenCountNothing() {
+    when(jokeStore.streamAuthorCounts()).thenAnswer(invocation -> {
+      authorJokeCounts.onJokeSaved(new JokeSavedEvent(new Joke(7L, "Short lived", "userOne", 0L)));
+      authorJokeCounts.onJokeDeleted(new JokeDeletedEvent(7L, "userOne"));
+      return Stream.of();
+    });
+    when(jokeStore.findViewsByIdIn(anyCollection())).thenReturn(List.of());
+
+    authorJokeCounts.afterSingletonsInstantiated();
+
+    assertThat(authorJokeCounts.get("userOne").count()).isZero();
+  }
+}
@@ -0,0 +1,36 @@
+package com.denisjulio.jokes.reactive;
+
+import static org.mockito.Mockito.when;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.denisjulio.jokes.JokesApiContractTests;
+
+import reactor.core.publisher.Mono;
+
+@SpringBootTest(classes = ReactiveJokesApiApplication.class, webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles(ReactiveJokesApiApplication.PROFILE)
+@Testcontainers
+class ReactiveJokesApiContractTest extends JokesApiContractTests {
+
+  @Container
+  @ServiceConnection
+  private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15");
+
+  @MockBean
+  private ReactiveJwtDecoder jwtDecoder;
+
+  @Override
+  protected void stubToken(String token, Jwt jwt) {
+    when(jwtDecoder.decode(token)).thenReturn(Mono.just(jwt));
+  }
+}